@@ -6,6 +6,7 @@ import com.itheima.bigevent.anno.OpLog;
 import com.itheima.bigevent.mapper.OperationLogMapper;
 import com.itheima.bigevent.pojo.OperationLog;
 import com.itheima.bigevent.pojo.Result;
+import com.itheima.bigevent.pojo.UserContext;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -17,7 +18,6 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.util.Map;
 
 @Aspect
 @Component
@@ -61,16 +61,10 @@ public class OperationLogAspect {
         OperationLog log = new OperationLog();
 
         // 用户信息
-        Map<String, Object> userMap = ThreadLocalUtil.get();
-        if (userMap != null) {
-            Object id = userMap.get("id");
-            Object username = userMap.get("username");
-            if (id instanceof Integer) {
-                log.setUserId((Integer) id);
-            }
-            if (username != null) {
-                log.setUsername(username.toString());
-            }
+        UserContext user = ThreadLocalUtil.get();
+        if (user != null) {
+            log.setUserId(user.id());
+            log.setUsername(user.username());
         }
 
         // 注解信息
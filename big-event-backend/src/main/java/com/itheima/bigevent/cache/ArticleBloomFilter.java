@@ -0,0 +1,192 @@
+package com.itheima.bigevent.cache;
+
+import com.itheima.bigevent.mapper.ArticleMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文章ID布隆过滤器
+ * 启动时从 article 表全量构建，新增文章时本地添加并通过 Redis 通知其他节点；
+ * 布隆过滤器不支持删除，已删除的ID由定时重建清理（期间由空值缓存兜底）。
+ * 新增通知可能丢失：对大于已知最大ID的查询返回否定前先查库补齐新ID，按间隔限流
+ */
+@Component
+public class ArticleBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ArticleBloomFilter.class);
+
+    private static final String BLOOM_CHANNEL = "cache:article:bloom";
+    private static final int MIN_CAPACITY = 10000;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${cache.article.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.article.bloom.fpp:0.01}")
+    private double fpp;
+
+    // 两次查库补齐新ID的最小间隔
+    @Value("${cache.article.bloom.catch-up-interval-ms:1000}")
+    private long catchUpIntervalMs;
+
+    // 构建完成前为 null，此时一律放行
+    private volatile BloomFilter filter;
+
+    // 重建期间新增的ID，重建完成后补入新过滤器
+    private volatile Set<Integer> rebuildBuffer;
+
+    // 已加入过滤器的最大文章ID
+    private final AtomicInteger maxSeenId = new AtomicInteger();
+
+    // 下一次允许查库补齐的时间
+    private final AtomicLong nextCatchUpAt = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(BLOOM_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    /**
+     * 定时重建，回收已删除文章占用的位
+     */
+    @Scheduled(initialDelayString = "${cache.article.bloom.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${cache.article.bloom.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Set<Integer> buffer = ConcurrentHashMap.newKeySet();
+        rebuildBuffer = buffer;
+        try {
+            List<Integer> ids = articleMapper.findAllIds();
+            BloomFilter rebuilt = new BloomFilter(Math.max(ids.size() * 2L, MIN_CAPACITY), fpp);
+            for (Integer id : ids) {
+                rebuilt.put(id);
+            }
+            filter = rebuilt;
+            for (Integer id : ids) {
+                maxSeenId.accumulateAndGet(id, Math::max);
+            }
+            for (Integer id : buffer) {
+                rebuilt.put(id);
+            }
+            log.info("[布隆过滤器] 文章ID过滤器已重建: 数量={}, 占用={}字节", ids.size(), rebuilt.sizeInBytes());
+        } catch (Exception e) {
+            log.error("[布隆过滤器] 重建失败，保留原过滤器: {}", e.getMessage(), e);
+        } finally {
+            rebuildBuffer = null;
+        }
+    }
+
+    /**
+     * 文章是否可能存在；返回 false 时一定不存在
+     */
+    public boolean mightContain(Integer articleId) {
+        if (articleId == null) {
+            return false;
+        }
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(articleId)) {
+            return true;
+        }
+        // 比已知ID都大的可能是通知丢失的新文章
+        if (articleId > maxSeenId.get() && catchUp()) {
+            // 补齐期间可能已重建，读取最新的过滤器
+            return filter.mightContain(articleId);
+        }
+        return false;
+    }
+
+    /**
+     * 查库补齐已知最大ID之后的新文章；限流期间不查库
+     * @return 是否查询了数据库
+     */
+    private boolean catchUp() {
+        long now = System.currentTimeMillis();
+        long next = nextCatchUpAt.get();
+        if (now < next || !nextCatchUpAt.compareAndSet(next, now + catchUpIntervalMs)) {
+            return false;
+        }
+        try {
+            List<Integer> ids = articleMapper.findIdsAfter(maxSeenId.get());
+            for (Integer id : ids) {
+                addLocal(id);
+            }
+            if (!ids.isEmpty()) {
+                log.info("[布隆过滤器] 补齐未收到通知的新文章: 数量={}", ids.size());
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("[布隆过滤器] 补齐新文章失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 新增文章后调用，并通知其他节点
+     */
+    public void add(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        addLocal(articleId);
+        try {
+            redisTemplate.convertAndSend(BLOOM_CHANNEL, String.valueOf(articleId));
+        } catch (Exception e) {
+            // 其他节点在下次重建时补齐
+            log.warn("[布隆过滤器] 发送新增通知失败: {}", e.getMessage());
+        }
+    }
+
+    private void addLocal(Integer articleId) {
+        Set<Integer> buffer = rebuildBuffer;
+        if (buffer != null) {
+            buffer.add(articleId);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(articleId);
+        }
+        maxSeenId.accumulateAndGet(articleId, Math::max);
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            addLocal(Integer.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("[布隆过滤器] 无法识别的消息: {}", body);
+        }
+    }
+}
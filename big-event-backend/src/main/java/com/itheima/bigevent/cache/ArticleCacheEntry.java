@@ -0,0 +1,21 @@
+package com.itheima.bigevent.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.itheima.bigevent.pojo.Article;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文章缓存条目
+ * 除文章本身外还记录逻辑过期时间和加载耗时，用于提前刷新和过期后返回旧值
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ArticleCacheEntry {
+    private Article article;// 文章
+    private long softExpireAt;// 逻辑过期时间（毫秒时间戳），之后的值视为旧值
+    private long loadMillis;// 从数据库加载耗时（毫秒）
+}
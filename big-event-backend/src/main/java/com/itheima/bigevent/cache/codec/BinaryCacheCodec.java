@@ -0,0 +1,324 @@
+package com.itheima.bigevent.cache.codec;
+
+import com.itheima.bigevent.cache.ArticleCacheEntry;
+import com.itheima.bigevent.pojo.Article;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制编解码器
+ * 格式：1 字节版本号 + 1 字节类型 + 字段按固定顺序写入（无字段名）；
+ * 正文超过阈值时使用 Deflate 压缩。
+ * 版本 0xB1 不含访问量字段，版本 0xB2 在末尾追加访问量；读取时两种版本都支持。
+ * 首字节为 '{' 或 '[' 时视为旧的 JSON 格式，交给 JSON 编解码器，便于平滑切换。
+ * 解码时所有长度字段都按剩余字节数校验，数据损坏或截断时按未命中处理（返回 null），不会抛出异常
+ */
+@Component
+public class BinaryCacheCodec implements CacheCodec {
+
+    public static final String NAME = "binary";
+
+    private static final byte VERSION_1 = (byte) 0xB1;
+    private static final byte VERSION = (byte) 0xB2;
+    private static final byte TYPE_ENTRY = 1;
+    private static final byte TYPE_LIST = 2;
+
+    private static final byte NULL = 0;
+    private static final byte PRESENT = 1;
+    private static final byte DEFLATED = 2;
+
+    // Deflate 的最大压缩比约为 1032:1，解压长度超过该比例的数据视为损坏
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    @Autowired
+    private JsonCacheCodec jsonCacheCodec;
+
+    // 正文 UTF-8 字节数超过该值时压缩
+    @Value("${cache.codec.compress-threshold:2048}")
+    private int compressThreshold;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(ArticleCacheEntry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(estimateSize(entry.getArticle()));
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeByte(TYPE_ENTRY);
+            out.writeLong(entry.getSoftExpireAt());
+            out.writeLong(entry.getLoadMillis());
+            writeArticle(out, entry.getArticle());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("文章缓存序列化失败", e);
+        }
+    }
+
+    @Override
+    public ArticleCacheEntry decode(byte[] data) {
+        try {
+            if (isJson(data)) {
+                return jsonCacheCodec.decode(data);
+            }
+            if (!hasHeader(data, TYPE_ENTRY)) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2));
+            long softExpireAt = in.readLong();
+            long loadMillis = in.readLong();
+            return new ArticleCacheEntry(readArticle(in, data[0]), softExpireAt, loadMillis);
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encodeList(List<Article> articles) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * Math.max(articles.size(), 1));
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeByte(TYPE_LIST);
+            out.writeInt(articles.size());
+            for (Article article : articles) {
+                writeArticle(out, article);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("文章列表序列化失败", e);
+        }
+    }
+
+    @Override
+    public List<Article> decodeList(byte[] data) {
+        try {
+            if (isJson(data)) {
+                return jsonCacheCodec.decodeList(data);
+            }
+            if (!hasHeader(data, TYPE_LIST)) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2));
+            // 每篇文章至少占一个字节，数量不可能超过剩余字节数
+            int size = readLength(in);
+            List<Article> articles = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                articles.add(readArticle(in, data[0]));
+            }
+            return articles;
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void writeArticle(DataOutputStream out, Article article) throws IOException {
+        writeInteger(out, article.getId());
+        writeString(out, article.getTitle());
+        writeContent(out, article.getContent());
+        writeString(out, article.getCoverImg());
+        writeString(out, article.getState());
+        writeInteger(out, article.getCategoryId());
+        writeInteger(out, article.getCreateUser());
+        writeTime(out, article.getCreateTime());
+        writeTime(out, article.getUpdateTime());
+        writeString(out, article.getSeoTitle());
+        writeString(out, article.getSeoDescription());
+        writeString(out, article.getSeoKeywords());
+        writeInteger(out, article.getLikeCount());
+        writeInteger(out, article.getFavoriteCount());
+        writeInteger(out, article.getViewCount());
+    }
+
+    private Article readArticle(DataInputStream in, byte version) throws IOException, DataFormatException {
+        Article article = new Article();
+        article.setId(readInteger(in));
+        article.setTitle(readString(in));
+        article.setContent(readContent(in));
+        article.setCoverImg(readString(in));
+        article.setState(readString(in));
+        article.setCategoryId(readInteger(in));
+        article.setCreateUser(readInteger(in));
+        article.setCreateTime(readTime(in));
+        article.setUpdateTime(readTime(in));
+        article.setSeoTitle(readString(in));
+        article.setSeoDescription(readString(in));
+        article.setSeoKeywords(readString(in));
+        article.setLikeCount(readInteger(in));
+        article.setFavoriteCount(readInteger(in));
+        if (version != VERSION_1) {
+            article.setViewCount(readInteger(in));
+        }
+        return article;
+    }
+
+    private void writeContent(DataOutputStream out, String content) throws IOException {
+        if (content == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < compressThreshold) {
+            out.writeByte(PRESENT);
+            out.writeInt(raw.length);
+            out.write(raw);
+            return;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+            out.writeByte(DEFLATED);
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private String readContent(DataInputStream in) throws IOException, DataFormatException {
+        byte marker = in.readByte();
+        if (marker == NULL) {
+            return null;
+        }
+        if (marker == PRESENT) {
+            byte[] raw = new byte[readLength(in)];
+            in.readFully(raw);
+            return new String(raw, StandardCharsets.UTF_8);
+        }
+        if (marker != DEFLATED) {
+            throw new DataFormatException("未知的正文标记");
+        }
+        int rawLength = in.readInt();
+        byte[] compressed = new byte[readLength(in)];
+        in.readFully(compressed);
+        if (rawLength < 0 || rawLength > (long) compressed.length * MAX_DEFLATE_RATIO) {
+            throw new DataFormatException("解压长度无效");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("压缩数据不完整");
+                }
+                offset += n;
+            }
+            if (offset != rawLength) {
+                throw new DataFormatException("解压长度不一致");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(raw.length);
+        out.write(raw);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] raw = new byte[checkLength(in, length)];
+        in.readFully(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        return checkLength(in, in.readInt());
+    }
+
+    /**
+     * 长度必须非负且不超过剩余字节数，避免损坏的数据触发超大数组分配
+     */
+    private static int checkLength(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > in.available()) {
+            throw new IOException("长度字段无效: " + length);
+        }
+        return length;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readByte() == NULL ? null : in.readInt();
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (in.readByte() == NULL) {
+            return null;
+        }
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static boolean isJson(byte[] data) {
+        return data.length > 0 && (data[0] == '{' || data[0] == '[');
+    }
+
+    private static boolean hasHeader(byte[] data, byte type) {
+        return data.length >= 2 && (data[0] == VERSION || data[0] == VERSION_1) && data[1] == type;
+    }
+
+    private static int estimateSize(Article article) {
+        String content = article != null ? article.getContent() : null;
+        return 256 + (content != null ? Math.min(content.length(), 64 * 1024) : 0);
+    }
+}
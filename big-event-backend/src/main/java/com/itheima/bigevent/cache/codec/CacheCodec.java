@@ -0,0 +1,32 @@
+package com.itheima.bigevent.cache.codec;
+
+import com.itheima.bigevent.cache.ArticleCacheEntry;
+import com.itheima.bigevent.pojo.Article;
+
+import java.util.List;
+
+/**
+ * 文章缓存编解码器
+ * 不同的键族（文章详情、热门列表）可以通过配置选择不同的实现
+ */
+public interface CacheCodec {
+
+    /**
+     * 编解码器名称，对应配置项的取值
+     */
+    String name();
+
+    byte[] encode(ArticleCacheEntry entry);
+
+    /**
+     * @return 解码结果，无法识别时返回 null
+     */
+    ArticleCacheEntry decode(byte[] data);
+
+    byte[] encodeList(List<Article> articles);
+
+    /**
+     * @return 解码结果，无法识别时返回 null
+     */
+    List<Article> decodeList(byte[] data);
+}
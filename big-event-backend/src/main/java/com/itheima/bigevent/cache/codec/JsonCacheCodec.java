@@ -0,0 +1,68 @@
+package com.itheima.bigevent.cache.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.itheima.bigevent.cache.ArticleCacheEntry;
+import com.itheima.bigevent.pojo.Article;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JSON 编解码器（Jackson），可读性好，体积和 CPU 开销较大
+ */
+@Component
+public class JsonCacheCodec implements CacheCodec {
+
+    public static final String NAME = "json";
+
+    private final ObjectMapper objectMapper;
+
+    public JsonCacheCodec() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(ArticleCacheEntry entry) {
+        try {
+            return objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new IllegalStateException("文章缓存序列化失败", e);
+        }
+    }
+
+    @Override
+    public ArticleCacheEntry decode(byte[] data) {
+        try {
+            return objectMapper.readValue(data, ArticleCacheEntry.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encodeList(List<Article> articles) {
+        try {
+            return objectMapper.writeValueAsBytes(articles);
+        } catch (IOException e) {
+            throw new IllegalStateException("文章列表序列化失败", e);
+        }
+    }
+
+    @Override
+    public List<Article> decodeList(byte[] data) {
+        try {
+            return objectMapper.readValue(data, new TypeReference<List<Article>>() {});
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
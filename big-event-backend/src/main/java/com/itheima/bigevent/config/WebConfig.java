@@ -22,7 +22,11 @@ public class WebConfig implements WebMvcConfigurer {
             // GET 请求允许匿名访问，POST/PUT/DELETE 需要认证
             // 允许匿名访问统计接口（访问量统计）
             "/statistics/view",
-            "/statistics/hot");
+            "/statistics/view/stats",
+            "/statistics/hot",
+            "/statistics/hot/feed",
+            // 本地存储的文件下载（图片需要在 img 标签中直接访问）
+            "/files/**");
 
     @Autowired
     private LoginInterceptor loginInterceptor;
@@ -33,8 +37,12 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(@NonNull final InterceptorRegistry registry) {
         // 先注册速率限制拦截器（在登录拦截器之前）
-        registry.addInterceptor(Objects.requireNonNull(rateLimitInterceptor))
-                .addPathPatterns("/user/login", "/user/register");
+        // 限流的接口和频率由 rate-limit.policies 配置
+        final List<String> rateLimitPaths = rateLimitInterceptor.getPathPatterns();
+        if (!rateLimitPaths.isEmpty()) {
+            registry.addInterceptor(Objects.requireNonNull(rateLimitInterceptor))
+                    .addPathPatterns(rateLimitPaths);
+        }
 
         // 再注册登录拦截器
         registry.addInterceptor(Objects.requireNonNull(loginInterceptor))
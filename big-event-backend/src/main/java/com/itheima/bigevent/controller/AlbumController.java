@@ -2,6 +2,7 @@ package com.itheima.bigevent.controller;
 
 import com.itheima.bigevent.anno.OpLog;
 import com.itheima.bigevent.pojo.Album;
+import com.itheima.bigevent.pojo.PageBean;
 import com.itheima.bigevent.pojo.Result;
 import com.itheima.bigevent.pojo.ResultCode;
 import com.itheima.bigevent.service.AlbumService;
@@ -26,6 +27,13 @@ public class AlbumController {
         return Result.success(albums);
     }
 
+    @OpLog(module = "相册管理", operation = "获取相册摘要列表")
+    @GetMapping("/summary")
+    public Result<PageBean<Album>> summary(@RequestParam(defaultValue = "1") Integer pageNum,
+                                           @RequestParam(defaultValue = "10") Integer pageSize) {
+        return Result.success(albumService.listSummary(pageNum, pageSize));
+    }
+
     @OpLog(module = "相册管理", operation = "获取相册详情")
     @GetMapping("/{id}")
     public Result<Album> getById(@PathVariable Integer id) {
@@ -3,6 +3,7 @@ package com.itheima.bigevent.controller;
 import com.itheima.bigevent.anno.OpLog;
 import com.itheima.bigevent.pojo.ChatMessage;
 import com.itheima.bigevent.pojo.Result;
+import com.itheima.bigevent.pojo.UserContext;
 import com.itheima.bigevent.service.ChatService;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,24 +29,19 @@ public class ChatController {
       return Result.error("消息内容不能为空");
     }
 
-    Map<String, Object> map = ThreadLocalUtil.get();
-    Integer userId = (Integer) map.get("id");
-    String username = (String) map.get("username");
-
-    if (userId == null || username == null) {
+    UserContext user = ThreadLocalUtil.get();
+    if (user == null || user.id() == null || user.username() == null) {
       return Result.error("请先登录");
     }
 
-    ChatMessage reply = chatService.sendMessage(content, userId, username);
+    ChatMessage reply = chatService.sendMessage(content, user.id(), user.username());
     return Result.success(reply);
   }
 
   @OpLog(module = "聊天", operation = "获取聊天历史")
   @GetMapping("/history")
   public Result<List<ChatMessage>> getHistory(@RequestParam(defaultValue = "50") Integer limit) {
-    Map<String, Object> map = ThreadLocalUtil.get();
-    Integer userId = (Integer) map.get("id");
-
+    Integer userId = ThreadLocalUtil.getCurrentUserId();
     if (userId == null) {
       return Result.error("请先登录");
     }
@@ -1,6 +1,7 @@
 package com.itheima.bigevent.controller;
 
 import com.itheima.bigevent.pojo.Comment;
+import com.itheima.bigevent.pojo.CursorPage;
 import com.itheima.bigevent.pojo.Result;
 import com.itheima.bigevent.service.CommentService;
 import jakarta.validation.constraints.NotNull;
@@ -36,6 +37,16 @@ public class CommentController {
     return Result.success(comments);
   }
 
+  /**
+   * 按游标分页获取文章评论（一级评论倒序，每条包含子评论）
+   */
+  @GetMapping("/page")
+  public Result<CursorPage<Comment>> page(@NotNull @RequestParam("articleId") Integer articleId,
+      @RequestParam(required = false) Integer cursor,
+      @RequestParam(defaultValue = "20") Integer size) {
+    return Result.success(commentService.getArticleComments(articleId, cursor, size));
+  }
+
   /**
    * 点赞评论
    */
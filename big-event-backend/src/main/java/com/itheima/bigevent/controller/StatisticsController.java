@@ -1,15 +1,25 @@
 package com.itheima.bigevent.controller;
 
+import com.itheima.bigevent.pojo.Article;
 import com.itheima.bigevent.pojo.Result;
+import com.itheima.bigevent.pojo.TokenClaims;
 import com.itheima.bigevent.service.ArticleViewService;
+import com.itheima.bigevent.service.CacheService;
+import com.itheima.bigevent.service.HotArticleService;
+import com.itheima.bigevent.service.PasswordService;
 import com.itheima.bigevent.service.StatisticsService;
+import com.itheima.bigevent.service.StorageService;
+import com.itheima.bigevent.service.TokenService;
+import com.itheima.bigevent.utils.HttpUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,9 +29,24 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PasswordService passwordService;
+
     @Autowired
     private ArticleViewService articleViewService;
 
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private HotArticleService hotArticleService;
+
+    @Autowired
+    private StorageService storageService;
+
     @GetMapping("/dashboard")
     public Result<Map<String, Object>> getDashboard() {
         Map<String, Object> data = statisticsService.getDashboardData();
@@ -29,14 +54,23 @@ public class StatisticsController {
     }
 
     /**
-     * 记录文章访问量
+     * 记录文章访问量（登录用户按用户ID、匿名访客按IP去重）
      */
     @PostMapping("/view")
-    public Result<Void> recordView(@RequestParam Integer articleId) {
-        articleViewService.incrementView(articleId);
+    public Result<Void> recordView(@RequestParam Integer articleId,
+                                   @RequestHeader(value = "Authorization", required = false) String token) {
+        articleViewService.recordView(articleId, resolveVisitor(token));
         return Result.success();
     }
 
+    /**
+     * 获取文章访问量和独立访客数
+     */
+    @GetMapping("/view/stats")
+    public Result<Map<String, Object>> getViewStats(@RequestParam Integer articleId) {
+        return Result.success(articleViewService.getViewStats(articleId));
+    }
+
     /**
      * 获取文章访问量
      */
@@ -50,8 +84,58 @@ public class StatisticsController {
      * 获取热门文章ID列表
      */
     @GetMapping("/hot")
-    public Result<java.util.List<Integer>> getHotArticles(@RequestParam(defaultValue = "10") Integer limit) {
-        java.util.List<Integer> hotArticleIds = articleViewService.getHotArticleIds(limit);
+    public Result<List<Integer>> getHotArticles(@RequestParam(defaultValue = "10") Integer limit) {
+        List<Integer> hotArticleIds = articleViewService.getHotArticleIds(limit);
         return Result.success(hotArticleIds);
     }
+
+    /**
+     * 获取热门文章列表（摘要，不含正文），按访问量、点赞数和发布时间综合排序
+     */
+    @GetMapping("/hot/feed")
+    public Result<List<Article>> getHotFeed(@RequestParam(defaultValue = "10") Integer limit) {
+        return Result.success(hotArticleService.getHotFeed(limit));
+    }
+
+    /**
+     * 获取文章缓存统计（L1/L2 命中率等）
+     */
+    @GetMapping("/cache")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(cacheService.getCacheStats());
+    }
+
+    /**
+     * 获取密码哈希线程池统计（排队耗时、哈希耗时、拒绝次数）
+     */
+    @GetMapping("/password")
+    public Result<Map<String, Object>> getPasswordStats() {
+        return Result.success(passwordService.getStats());
+    }
+
+    /**
+     * 获取文件上传统计（次数、耗时、吞吐量）
+     */
+    @GetMapping("/storage")
+    public Result<Map<String, Object>> getStorageStats() {
+        return Result.success(storageService.getStats());
+    }
+
+    /**
+     * 访问统计接口允许匿名访问，token 有效时使用用户ID，否则使用客户端IP
+     */
+    private String resolveVisitor(String token) {
+        if (token != null && !token.isEmpty()) {
+            try {
+                TokenClaims claims = tokenService.verify(token.trim());
+                Integer id = claims != null ? claims.id() : null;
+                if (id != null) {
+                    return "u:" + id;
+                }
+            } catch (Exception ignored) {
+                // token 无效时按匿名访客处理
+            }
+        }
+        return "ip:" + HttpUtil.getClientIp();
+    }
 }
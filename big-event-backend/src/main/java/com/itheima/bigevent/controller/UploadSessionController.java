@@ -0,0 +1,66 @@
+package com.itheima.bigevent.controller;
+
+import com.itheima.bigevent.anno.OpLog;
+import com.itheima.bigevent.pojo.Result;
+import com.itheima.bigevent.pojo.ResultCode;
+import com.itheima.bigevent.pojo.UploadSession;
+import com.itheima.bigevent.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * 分片上传（断点续传）
+ * 1. POST /upload/session 创建会话，返回 uploadId、分片大小和分片数
+ * 2. PUT /upload/session/{uploadId}/chunks/{index} 上传分片，请求体为分片原始字节，
+ *    请求头 X-Chunk-Checksum 为分片的 SHA-256
+ * 3. GET /upload/session/{uploadId} 查询已接收的分片，断线后只补传缺失的分片
+ * 4. POST /upload/session/{uploadId}/complete 完成上传，返回文件地址
+ */
+@RestController
+@RequestMapping("/upload/session")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public Result<UploadSession> init(@RequestBody UploadSession request) {
+        if (request.getFileSize() == null) {
+            return Result.error(ResultCode.INVALID_PARAMETER, "文件大小不能为空");
+        }
+        UploadSession session = uploadSessionService.init(request.getFileName(), request.getFileSize(),
+                request.getChunkSize(), request.getContentType());
+        return Result.success(session);
+    }
+
+    @PutMapping("/{uploadId}/chunks/{index}")
+    public Result<Void> uploadChunk(@PathVariable String uploadId, @PathVariable Integer index,
+                                    @RequestHeader("X-Chunk-Checksum") String checksum,
+                                    HttpServletRequest request) throws IOException {
+        // 直接读取请求体，不经过 multipart 解析和缓冲
+        uploadSessionService.writeChunk(uploadId, index, request.getInputStream(), checksum);
+        return Result.success();
+    }
+
+    @GetMapping("/{uploadId}")
+    public Result<UploadSession> status(@PathVariable String uploadId) {
+        return Result.success(uploadSessionService.getStatus(uploadId));
+    }
+
+    @OpLog(module = "文件管理", operation = "分片上传文件")
+    @PostMapping("/{uploadId}/complete")
+    public Result<String> complete(@PathVariable String uploadId) {
+        String url = uploadSessionService.complete(uploadId);
+        return Result.success(ResultCode.SUCCESS, "文件上传成功", url);
+    }
+}
@@ -3,16 +3,18 @@ package com.itheima.bigevent.controller;
 import com.itheima.bigevent.anno.OpLog;
 import com.itheima.bigevent.pojo.Result;
 import com.itheima.bigevent.pojo.ResultCode;
+import com.itheima.bigevent.pojo.TokenClaims;
 import com.itheima.bigevent.pojo.User;
+import com.itheima.bigevent.pojo.UserContext;
+import com.itheima.bigevent.pojo.UserSession;
+import com.itheima.bigevent.service.PasswordService;
+import com.itheima.bigevent.service.TokenService;
 import com.itheima.bigevent.service.UserService;
 import com.itheima.bigevent.utils.JwtUtil;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
 import jakarta.validation.constraints.Pattern;
 import org.hibernate.validator.constraints.URL;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.slf4j.Logger;
@@ -44,9 +46,13 @@ public class UserController {
     private UserService userService;
 
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private TokenService tokenService;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PasswordService passwordService;
 
     @OpLog(module = "用户管理", operation = "用户注册")
     @PostMapping("/register")
@@ -66,17 +72,22 @@ public class UserController {
     public Result<String> login(@Pattern(regexp = "^\\S{5,16}$") final String username,
             final String password, // 登录时不需要严格验证密码格式（因为可能是旧密码）
             @RequestParam(required = false, defaultValue = "false") final Boolean rememberMe) {
-        final User existingUser = userService.findByUsername(username);
+        final User existingUser = userService.findForAuthentication(username);
         if (existingUser == null) {
             return Result.error(ResultCode.USER_NOT_FOUND);
         }
-        if (passwordEncoder.matches(password, existingUser.getPassword())) {
-            final Map<String, Object> map = Map.of("id", existingUser.getId(),
-                    "username", existingUser.getUsername());
+        if (passwordService.matches(password, existingUser.getPassword())) {
+            // BCrypt强度配置变更后，借登录时拿到的明文重新计算哈希
+            if (passwordService.needsRehash(existingUser.getPassword())) {
+                try {
+                    userService.rehashPassword(existingUser.getId(), password);
+                } catch (Exception e) {
+                    log.warn("[登录] 重新计算密码哈希失败，下次登录重试: {}", e.getMessage());
+                }
+            }
             // 根据rememberMe参数生成不同有效期的token
-            final String token = JwtUtil.genToken(map, rememberMe != null && rememberMe);
-            // Save token to redis
-            final ValueOperations<String, String> operations = stringRedisTemplate.opsForValue();
+            final String token = jwtUtil.genToken(existingUser.getId(), existingUser.getUsername(),
+                    existingUser.getRole(), rememberMe != null && rememberMe);
             // 根据rememberMe设置不同的过期时间
             final Duration ttl = (rememberMe != null && rememberMe)
                     ? Duration.ofDays(7) // 记住我：7天
@@ -90,11 +101,8 @@ public class UserController {
                     ttl.toHours());
 
             try {
-                operations.set(Objects.requireNonNull(token, "token"), Objects.requireNonNull(token, "token"),
+                tokenService.store(Objects.requireNonNull(token, "token"), existingUser.getId(),
                         Objects.requireNonNull(ttl, "ttl"));
-                log.debug("[登录] Token已存储到Redis: 长度={}, 验证存储={}",
-                        token.length(),
-                        operations.get(token) != null ? "成功" : "失败");
             } catch (Exception e) {
                 log.error("[登录] Token存储到Redis失败: {}", e.getMessage(), e);
                 throw new RuntimeException("Token存储失败", e);
@@ -113,37 +121,21 @@ public class UserController {
     public Result<String> refreshToken(@RequestHeader(AUTHORIZATION_HEADER) final String token) {
         try {
             // 验证旧token
-            final ValueOperations<String, String> operations = stringRedisTemplate.opsForValue();
-            final String redisToken = operations.get(Objects.requireNonNull(token, "Token不能为空"));
-            if (redisToken == null) {
+            final TokenClaims claims = tokenService.verify(Objects.requireNonNull(token, "Token不能为空").trim());
+            if (claims == null) {
                 return Result.error(ResultCode.TOKEN_EXPIRED);
             }
 
             // 刷新token
-            final String newToken = JwtUtil.refreshToken(Objects.requireNonNull(token, "Token不能为空"));
+            // 刷新token（沿用旧token中的rememberMe状态，无需再次解码新token）
+            final String newToken = jwtUtil.refreshToken(claims);
 
-            // 删除旧token
-            operations.getOperations().delete(Objects.requireNonNull(token, "Token不能为空"));
+            // 吊销旧token（通知所有节点清除本地缓存）
+            tokenService.revoke(token.trim());
 
             // 保存新token到redis
-            // 检查新token的rememberMe状态
-            try {
-                com.auth0.jwt.interfaces.DecodedJWT decodedJWT = com.auth0.jwt.JWT.decode(newToken);
-                Boolean rememberMe = decodedJWT.getClaim("rememberMe").asBoolean();
-                final Duration ttl = (rememberMe != null && rememberMe)
-                        ? Duration.ofDays(7)
-                        : Duration.ofHours(2);
-                operations.set(
-                        Objects.requireNonNull(newToken, "新Token不能为空"),
-                        Objects.requireNonNull(newToken, "新Token不能为空"),
-                        Objects.requireNonNull(ttl, "TTL不能为空"));
-            } catch (Exception e) {
-                // 如果无法解析，使用默认2小时
-                operations.set(
-                        Objects.requireNonNull(newToken, "新Token不能为空"),
-                        Objects.requireNonNull(newToken, "新Token不能为空"),
-                        Objects.requireNonNull(Duration.ofHours(2), "TTL不能为空"));
-            }
+            final Duration ttl = claims.rememberMe() ? Duration.ofDays(7) : Duration.ofHours(2);
+            tokenService.store(Objects.requireNonNull(newToken, "新Token不能为空"), claims.id(), ttl);
 
             // 使用明确的方法调用，避免方法重载冲突
             return Result.success(ResultCode.SUCCESS, ResultCode.SUCCESS.getMessage(), newToken);
@@ -154,17 +146,14 @@ public class UserController {
 
     @GetMapping("/userInfo")
     public Result<User> userInfo() {
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final String username = Objects.requireNonNull((String) map.get("username"), "用户名不能为空");
-        final User user = userService.findByUsername(username);
+        final User user = userService.findById(ThreadLocalUtil.getCurrentUserIdRequired());
         return Result.success(user);
     }
 
     @OpLog(module = "用户管理", operation = "修改用户资料")
     @PutMapping("/update")
     public Result<String> update(@RequestBody @Validated final User user) {
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final Integer id = (Integer) map.get("id");
+        final Integer id = ThreadLocalUtil.getCurrentUserIdRequired();
         if (user.getId().equals(id)) {
             userService.update(user);
             return Result.success(ResultCode.UPDATED, "用户信息更新成功");
@@ -191,37 +180,45 @@ public class UserController {
             return Result.error(ResultCode.INVALID_PARAMETER, "缺少必要的参数");
         }
 
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final String username = (String) map.get("username");
-        final User user = userService.findByUsername(username);
+        final User user = userService.findForAuthentication(ThreadLocalUtil.getRequired().username());
         if (!rePwd.equals(newPwd)) {
             return Result.error(ResultCode.PASSWORD_MISMATCH);
         }
-        if (!passwordEncoder.matches(oldPwd, user.getPassword())) {
+        if (!passwordService.matches(oldPwd, user.getPassword())) {
             return Result.error(ResultCode.PASSWORD_ERROR, "原密码错误");
         }
 
         userService.updatePwd(newPwd);
-        // Delete token in redis.
-        final ValueOperations<String, String> operations = stringRedisTemplate.opsForValue();
-        operations.getOperations().delete(Objects.requireNonNull(token, "token"));
+        // 吊销该用户所有设备上的token（通知所有节点清除本地缓存）
+        tokenService.revokeAll(user.getId());
 
         return Result.success(ResultCode.UPDATED, "密码修改成功，请重新登录");
     }
 
+    @OpLog(module = "用户管理", operation = "退出登录")
+    @PostMapping("/logout")
+    public Result<String> logout(@RequestHeader(AUTHORIZATION_HEADER) final String token) {
+        tokenService.revoke(Objects.requireNonNull(token, "token").trim());
+        return Result.success(ResultCode.LOGOUT_SUCCESS, ResultCode.LOGOUT_SUCCESS.getMessage());
+    }
+
+    @OpLog(module = "用户管理", operation = "退出所有设备")
+    @PostMapping("/logoutAll")
+    public Result<Integer> logoutAll() {
+        final int count = tokenService.revokeAll(ThreadLocalUtil.getCurrentUserIdRequired());
+        return Result.success(ResultCode.LOGOUT_SUCCESS, ResultCode.LOGOUT_SUCCESS.getMessage(), count);
+    }
+
+    @GetMapping("/sessions")
+    public Result<java.util.List<UserSession>> sessions(@RequestHeader(AUTHORIZATION_HEADER) final String token) {
+        return Result.success(tokenService.listSessions(ThreadLocalUtil.getCurrentUserIdRequired(), token.trim()));
+    }
+
     @OpLog(module = "用户管理", operation = "获取用户列表")
     @GetMapping("/list")
     public Result<java.util.List<User>> list() {
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final String username = (String) map.get("username");
-        final User currentUser = userService.findByUsername(username);
-
-        if (currentUser == null) {
-            return Result.error(ResultCode.USER_NOT_FOUND);
-        }
-
-        // 判断是否为管理员
-        final boolean isAdmin = "admin".equals(currentUser.getRole());
+        // 判断是否为管理员（角色来自令牌，无需查询数据库）
+        final boolean isAdmin = ThreadLocalUtil.getRequired().isAdmin();
         final java.util.List<User> users = userService.findAllUsers(isAdmin);
 
         // 移除密码信息
@@ -233,11 +230,7 @@ public class UserController {
     @OpLog(module = "用户管理", operation = "更新用户角色")
     @PatchMapping("/updateRole")
     public Result<String> updateRole(@RequestParam final Integer id, @RequestParam final String role) {
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final String username = (String) map.get("username");
-        final User currentUser = userService.findByUsername(username);
-
-        if (currentUser == null || !"admin".equals(currentUser.getRole())) {
+        if (!ThreadLocalUtil.getRequired().isAdmin()) {
             return Result.error(ResultCode.PERMISSION_DENIED);
         }
 
@@ -246,21 +239,27 @@ public class UserController {
         }
 
         userService.updateRole(id, role);
+        // 角色保存在令牌中，变更后让该用户重新登录
+        tokenService.revokeAll(id);
         return Result.success(ResultCode.UPDATED, "用户角色更新成功");
     }
 
     @OpLog(module = "用户管理", operation = "管理员更新用户信息")
     @PutMapping("/updateByAdmin")
     public Result<String> updateByAdmin(@RequestBody @Validated final User user) {
-        final Map<String, Object> map = ThreadLocalUtil.get();
-        final String username = (String) map.get("username");
-        final User currentUser = userService.findByUsername(username);
-
-        if (currentUser == null || !"admin".equals(currentUser.getRole())) {
+        if (!ThreadLocalUtil.getRequired().isAdmin()) {
             return Result.error(ResultCode.PERMISSION_DENIED);
         }
 
+        final User target = userService.findById(user.getId());
+        if (target == null) {
+            return Result.error(ResultCode.USER_NOT_FOUND);
+        }
         userService.updateByAdmin(user);
+        // 角色保存在令牌中，变更后让该用户重新登录
+        if (!Objects.equals(target.getRole(), user.getRole())) {
+            tokenService.revokeAll(user.getId());
+        }
         return Result.success(ResultCode.UPDATED, "用户信息更新成功");
     }
 }
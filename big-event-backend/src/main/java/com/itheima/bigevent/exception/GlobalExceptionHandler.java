@@ -2,14 +2,18 @@ package com.itheima.bigevent.exception;
 
 import com.itheima.bigevent.pojo.Result;
 import com.itheima.bigevent.pojo.ResultCode;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.apache.catalina.connector.ClientAbortException;
@@ -98,6 +102,17 @@ public class GlobalExceptionHandler {
         return Result.error(ResultCode.SERVICE_UNAVAILABLE, "网络异常，请稍后重试");
     }
 
+    /**
+     * 密码哈希线程池繁忙，快速返回503
+     */
+    @ExceptionHandler(PasswordServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<?> handlePasswordServiceBusyException(PasswordServiceBusyException e, HttpServletResponse response) {
+        log.warn("登录请求繁忙: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return Result.error(ResultCode.SERVICE_UNAVAILABLE, "登录请求繁忙，请稍后重试");
+    }
+
     /**
      * 运行时异常
      */
@@ -0,0 +1,11 @@
+package com.itheima.bigevent.exception;
+
+/**
+ * 密码哈希线程池已满或等待超时
+ */
+public class PasswordServiceBusyException extends RuntimeException {
+
+    public PasswordServiceBusyException(String message) {
+        super(message);
+    }
+}
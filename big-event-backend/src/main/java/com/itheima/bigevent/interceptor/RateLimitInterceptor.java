@@ -1,69 +1,166 @@
 package com.itheima.bigevent.interceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.itheima.bigevent.pojo.Result;
 import com.itheima.bigevent.pojo.ResultCode;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.PrintWriter;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 速率限制拦截器
  * 防止暴力破解和DoS攻击
+ *
+ * 按接口配置限流策略（rate-limit.policies），格式为逗号分隔的 路径模式:次数/秒数[:突发次数]，
+ * 例如 /user/login:5/60 表示每个IP每60秒最多5次，默认允许一次性用完。
+ * 每个 (策略, IP) 的状态只是一个 long（GCRA 的理论到达时间），用 CAS 原子更新，不存在窗口重置的竞争；
+ * 状态保存在有容量上限的 Caffeine 缓存中，空闲超过最长周期后自动过期，
+ * 伪造大量IP时内存保持恒定（频繁访问的键由 TinyLFU 准入策略保留，一次性的键优先被淘汰）
  */
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
   private static final Logger log = LoggerFactory.getLogger(RateLimitInterceptor.class);
   private final ObjectMapper objectMapper = new ObjectMapper();
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
-  // 存储每个IP的请求计数和时间戳
-  private final Map<String, RateLimitInfo> rateLimitMap = new ConcurrentHashMap<>();
+  @Value("${rate-limit.policies:/user/login:5/60,/user/register:5/60}")
+  private String policyConfig;
 
-  // 速率限制配置：每分钟最多5次请求
-  private static final int MAX_REQUESTS_PER_MINUTE = 5;
-  private static final long TIME_WINDOW_MS = 60 * 1000; // 1分钟
+  // 最多跟踪的 (策略, IP) 数量
+  @Value("${rate-limit.max-keys:100000}")
+  private long maxKeys;
+
+  private List<Policy> policies;
+
+  // 策略序号|IP -> 理论到达时间（纳秒）
+  private Cache<String, AtomicLong> states;
+
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * 限流策略
+   * @param interval  两次请求之间的平均间隔（纳秒）
+   * @param tolerance 允许提前到达的最大时间（纳秒），决定突发次数
+   */
+  record Policy(String pattern, int limit, long periodSeconds, long interval, long tolerance) {
+  }
+
+  @PostConstruct
+  public void init() {
+    policies = parsePolicies(policyConfig);
+    // 理论到达时间最多领先当前时间 tolerance + interval，空闲超过该时间的状态已无意义
+    long maxIdleNanos = policies.stream().mapToLong(p -> p.tolerance() + p.interval()).max()
+        .orElse(TimeUnit.SECONDS.toNanos(60));
+    states = Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .expireAfterAccess(Duration.ofNanos(maxIdleNanos))
+        .build();
+    log.info("[速率限制] 已加载 {} 条策略: {}", policies.size(), policyConfig);
+  }
+
+  /**
+   * 需要限流的路径模式（供 WebConfig 注册拦截器）
+   */
+  public List<String> getPathPatterns() {
+    return policies.stream().map(Policy::pattern).toList();
+  }
 
   @Override
   public boolean preHandle(@NonNull HttpServletRequest request,
       @NonNull HttpServletResponse response,
       @NonNull Object handler) {
-    // 只对登录和注册接口限流
     String uri = request.getRequestURI();
-    if (!uri.equals("/user/login") && !uri.equals("/user/register")) {
+    for (int i = 0; i < policies.size(); i++) {
+      Policy policy = policies.get(i);
+      if (!pathMatcher.match(policy.pattern(), uri)) {
+        continue;
+      }
+      String clientIp = getClientIp(request);
+      long retryAfterNanos = acquire(i + "|" + clientIp, policy);
+      if (retryAfterNanos > 0) {
+        rejected.increment();
+        log.warn("[速率限制] IP {} 请求过于频繁, URI: {}", clientIp, uri);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds(retryAfterNanos)));
+        writeErrorResponse(response, "请求过于频繁，请稍后再试（每" + policy.periodSeconds() + "秒最多"
+            + policy.limit() + "次）");
+        return false;
+      }
       return true;
     }
+    return true;
+  }
 
-    String clientIp = getClientIp(request);
-    RateLimitInfo info = rateLimitMap.computeIfAbsent(clientIp, k -> new RateLimitInfo());
-
-    long currentTime = System.currentTimeMillis();
+  /**
+   * GCRA：允许时推进理论到达时间并返回 0，否则返回还需等待的纳秒数
+   */
+  private long acquire(String key, Policy policy) {
+    return acquire(states.get(key, k -> new AtomicLong()), policy, System.nanoTime());
+  }
 
-    // 如果时间窗口已过期，重置计数
-    if (currentTime - info.getWindowStart() > TIME_WINDOW_MS) {
-      info.reset(currentTime);
+  static long acquire(AtomicLong tat, Policy policy, long now) {
+    while (true) {
+      long current = tat.get();
+      long base = current == 0 || current - now < 0 ? now : current;
+      long next = base + policy.interval();
+      long allowAt = next - policy.tolerance() - policy.interval();
+      if (allowAt - now > 0) {
+        return allowAt - now;
+      }
+      if (tat.compareAndSet(current, next)) {
+        return 0;
+      }
     }
+  }
 
-    // 检查是否超过限制
-    int currentCount = info.incrementAndGet();
-    if (currentCount > MAX_REQUESTS_PER_MINUTE) {
-      log.warn("[速率限制] IP {} 请求过于频繁: {} 次/分钟, URI: {}",
-          clientIp, currentCount, uri);
-      writeErrorResponse(response, "请求过于频繁，请稍后再试（每分钟最多" + MAX_REQUESTS_PER_MINUTE + "次）");
-      return false;
-    }
+  /**
+   * 等待时间向上取整到秒（至少 1 秒），按该值重试时一定已经放行
+   */
+  static long retryAfterSeconds(long retryAfterNanos) {
+    return Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+  }
 
-    return true;
+  /**
+   * 解析 路径模式:次数/秒数[:突发次数]，多条用逗号分隔
+   */
+  static List<Policy> parsePolicies(String config) {
+    List<Policy> result = new ArrayList<>();
+    if (config == null || config.isBlank()) {
+      return result;
+    }
+    for (String item : config.split(",")) {
+      String[] parts = item.trim().split(":");
+      String[] rate = parts.length >= 2 ? parts[1].split("/") : new String[0];
+      if (rate.length != 2 || parts[0].isEmpty()) {
+        throw new IllegalArgumentException("限流策略格式错误（应为 路径:次数/秒数[:突发次数]）: " + item);
+      }
+      int limit = Integer.parseInt(rate[0].trim());
+      long periodSeconds = Long.parseLong(rate[1].trim());
+      int burst = parts.length >= 3 ? Integer.parseInt(parts[2].trim()) : limit;
+      if (limit <= 0 || periodSeconds <= 0 || burst <= 0) {
+        throw new IllegalArgumentException("限流策略的次数、周期和突发次数必须为正数: " + item);
+      }
+      long interval = TimeUnit.SECONDS.toNanos(periodSeconds) / limit;
+      result.add(new Policy(parts[0].trim(), limit, periodSeconds, interval, interval * (burst - 1)));
+    }
+    return result;
   }
 
   /**
@@ -99,7 +196,7 @@ public class RateLimitInterceptor implements HandlerInterceptor {
       response.setContentType("application/json;charset=UTF-8");
       response.setCharacterEncoding("UTF-8");
 
-      Result<?> result = Result.error(ResultCode.INVALID_PARAMETER, message);
+      Result<?> result = Result.error(ResultCode.RATE_LIMIT_EXCEEDED, message);
       String json = objectMapper.writeValueAsString(result);
 
       PrintWriter writer = response.getWriter();
@@ -109,25 +206,4 @@ public class RateLimitInterceptor implements HandlerInterceptor {
       log.error("写入速率限制错误响应失败", e);
     }
   }
-
-  /**
-   * 速率限制信息
-   */
-  private static class RateLimitInfo {
-    private final AtomicInteger requestCount = new AtomicInteger(0);
-    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
-
-    public int incrementAndGet() {
-      return requestCount.incrementAndGet();
-    }
-
-    public long getWindowStart() {
-      return windowStart.get();
-    }
-
-    public void reset(long newStartTime) {
-      requestCount.set(0);
-      windowStart.set(newStartTime);
-    }
-  }
 }
@@ -5,15 +5,69 @@ import org.apache.ibatis.annotations.*;
 
 import java.util.List;
 
+/**
+ * 相册图片 Mapper
+ * 缩略图字段：ALTER TABLE album_image ADD COLUMN thumb_url VARCHAR(500), ADD COLUMN medium_url VARCHAR(500)
+ */
 @Mapper
 public interface AlbumImageMapper {
-    @Insert("insert into album_image(album_id, image_url, image_name, image_desc, sort_order, create_time) " +
-            "values(#{albumId}, #{imageUrl}, #{imageName}, #{imageDesc}, #{sortOrder}, now())")
+    @Insert("insert into album_image(album_id, image_url, image_name, image_desc, sort_order, thumb_url, medium_url, create_time) " +
+            "values(#{albumId}, #{imageUrl}, #{imageName}, #{imageDesc}, #{sortOrder}, #{thumbUrl}, #{mediumUrl}, now())")
     void add(AlbumImage image);
 
+    // 多行插入
+    @Insert({
+            "<script>",
+            "insert into album_image(album_id, image_url, image_name, image_desc, sort_order, thumb_url, medium_url, create_time) values",
+            "<foreach collection='images' item='i' separator=','>",
+            "(#{i.albumId}, #{i.imageUrl}, #{i.imageName}, #{i.imageDesc}, #{i.sortOrder}, #{i.thumbUrl}, #{i.mediumUrl}, now())",
+            "</foreach>",
+            "</script>"
+    })
+    void batchAdd(@Param("images") List<AlbumImage> images);
+
+    // 一条语句更新多张图片的地址、缩略图、名称、描述和排序
+    @Update({
+            "<script>",
+            "update album_image set",
+            "image_url = case id <foreach collection='images' item='i'>when #{i.id} then #{i.imageUrl} </foreach> end,",
+            "image_name = case id <foreach collection='images' item='i'>when #{i.id} then #{i.imageName} </foreach> end,",
+            "image_desc = case id <foreach collection='images' item='i'>when #{i.id} then #{i.imageDesc} </foreach> end,",
+            "thumb_url = case id <foreach collection='images' item='i'>when #{i.id} then #{i.thumbUrl} </foreach> end,",
+            "medium_url = case id <foreach collection='images' item='i'>when #{i.id} then #{i.mediumUrl} </foreach> end,",
+            "sort_order = case id <foreach collection='images' item='i'>when #{i.id} then #{i.sortOrder} </foreach> end",
+            "where album_id = #{albumId} and id in",
+            "<foreach collection='images' item='i' open='(' separator=',' close=')'>#{i.id}</foreach>",
+            "</script>"
+    })
+    void batchUpdate(@Param("albumId") Integer albumId, @Param("images") List<AlbumImage> images);
+
+    @Delete({
+            "<script>",
+            "delete from album_image where album_id = #{albumId} and id in",
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"
+    })
+    void deleteByIds(@Param("albumId") Integer albumId, @Param("ids") List<Integer> ids);
+
     @Select("select * from album_image where album_id = #{albumId} order by sort_order, create_time")
     List<AlbumImage> findByAlbumId(Integer albumId);
 
+    // 批量查询多个相册的图片（建议索引：album_image(album_id, sort_order)）
+    @Select({
+            "<script>",
+            "select * from album_image where album_id in",
+            "<foreach collection='albumIds' item='albumId' open='(' separator=',' close=')'>#{albumId}</foreach>",
+            "order by album_id, sort_order, create_time",
+            "</script>"
+    })
+    List<AlbumImage> findByAlbumIds(@Param("albumIds") List<Integer> albumIds);
+
+    // 缩略图生成后回填到引用该图片的所有相册图片
+    @Update("update album_image set thumb_url = #{thumbUrl}, medium_url = #{mediumUrl} where image_url = #{imageUrl}")
+    int updateThumbnails(@Param("imageUrl") String imageUrl, @Param("thumbUrl") String thumbUrl,
+                         @Param("mediumUrl") String mediumUrl);
+
     @Delete("delete from album_image where album_id = #{albumId}")
     void deleteByAlbumId(Integer albumId);
 
@@ -15,6 +15,15 @@ public interface AlbumMapper {
     @Select("select * from album order by create_time desc")
     List<Album> list();
 
+    // 摘要列表：封面（未设置时取第一张图片）、封面小图和图片数量，不加载图片明细
+    @Select("select t.*, coalesce((select f.thumb_url from file_object f where f.url = t.cover_img), t.cover_img) as cover_thumb " +
+            "from (select a.id, a.title, a.description, a.create_user, a.create_time, a.update_time, " +
+            "coalesce(a.cover_img, (select i.image_url from album_image i where i.album_id = a.id " +
+            "order by i.sort_order, i.create_time limit 1)) as cover_img, " +
+            "(select count(*) from album_image i where i.album_id = a.id) as image_count " +
+            "from album a) t order by t.create_time desc")
+    List<Album> listSummary();
+
     @Select("select * from album where id = #{id}")
     Album findById(Integer id);
 
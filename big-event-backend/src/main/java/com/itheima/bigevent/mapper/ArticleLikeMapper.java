@@ -1,10 +1,14 @@
 package com.itheima.bigevent.mapper;
 
+import com.itheima.bigevent.pojo.ArticleLike;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /**
  * 文章点赞Mapper
  */
@@ -38,4 +42,39 @@ public interface ArticleLikeMapper {
    */
   @Select("SELECT COUNT(*) FROM article_like WHERE article_id = #{articleId}")
   Integer countByArticleId(Integer articleId);
+
+  /**
+   * 查询文章的全部点赞人（用于预热 Redis 点赞集合）
+   */
+  @Select("SELECT article_id, user_id, ip FROM article_like WHERE article_id = #{articleId}")
+  List<ArticleLike> findByArticleId(Integer articleId);
+
+  /**
+   * 批量插入点赞记录
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO article_like(article_id, user_id, ip, create_time) VALUES",
+      "<foreach collection='likes' item='l' separator=','>",
+      "(#{l.articleId}, #{l.userId}, #{l.ip}, NOW())",
+      "</foreach>",
+      "</script>"
+  })
+  void batchInsert(@Param("likes") List<ArticleLike> likes);
+
+  /**
+   * 批量删除点赞记录（登录用户按用户ID，匿名用户按IP）
+   */
+  @Delete({
+      "<script>",
+      "DELETE FROM article_like WHERE",
+      "<foreach collection='likes' item='l' separator=' OR '>",
+      "<choose>",
+      "<when test='l.userId != null'>(article_id = #{l.articleId} AND user_id = #{l.userId})</when>",
+      "<otherwise>(article_id = #{l.articleId} AND user_id IS NULL AND ip = #{l.ip})</otherwise>",
+      "</choose>",
+      "</foreach>",
+      "</script>"
+  })
+  void batchDelete(@Param("likes") List<ArticleLike> likes);
 }
@@ -4,6 +4,8 @@ import com.itheima.bigevent.pojo.Article;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
@@ -15,6 +17,7 @@ public interface ArticleMapper {
     @Insert("insert into article(title, content, cover_img, state, category_id, create_user, create_time, update_time) "
             +
             "values(#{title},#{content},#{coverImg},#{state},#{categoryId},#{createUser},now(),now())")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     void add(final Article article);
 
     // 文章列表查询（支持关键词搜索）
@@ -26,6 +29,28 @@ public interface ArticleMapper {
     @Select("select * from article where id=#{id}")
     Article findById(final Integer id);
 
+    // 全部文章ID（用于构建布隆过滤器）
+    @Select("select id from article")
+    List<Integer> findAllIds();
+
+    // 大于指定ID的文章ID（布隆过滤器漏收新增通知时补齐）
+    @Select("select id from article where id > #{afterId} order by id")
+    List<Integer> findIdsAfter(Integer afterId);
+
+    // 热门候选：最近发布的已发布文章（摘要字段，不含正文）
+    @Select("select a.id, a.title, a.cover_img, a.state, a.category_id, a.create_user, a.create_time, a.update_time, " +
+            "coalesce(a.like_count, 0) as like_count, coalesce(v.view_count, 0) as view_count " +
+            "from article a left join article_view v on v.article_id = a.id " +
+            "where a.state = '已发布' order by a.create_time desc limit #{limit}")
+    List<Article> findRecentSummaries(final Integer limit);
+
+    // 热门候选：访问量最高的已发布文章（摘要字段，不含正文）
+    @Select("select a.id, a.title, a.cover_img, a.state, a.category_id, a.create_user, a.create_time, a.update_time, " +
+            "coalesce(a.like_count, 0) as like_count, v.view_count " +
+            "from article_view v join article a on a.id = v.article_id " +
+            "where a.state = '已发布' order by v.view_count desc limit #{limit}")
+    List<Article> findTopViewedSummaries(final Integer limit);
+
     @Update("update article set title=#{title},content=#{content},cover_img=#{coverImg},state=#{state},category_id=#{categoryId},update_time=now() where id=#{id}")
     void update(final Article article);
 
@@ -44,6 +69,19 @@ public interface ArticleMapper {
     @Update("UPDATE article SET like_count = GREATEST(COALESCE(like_count, 0) - 1, 0) WHERE id = #{id}")
     void decrementLikeCount(Integer id);
 
+    /**
+     * 批量设置点赞数（以 Redis 中的计数为准）
+     */
+    @Update({
+            "<script>",
+            "UPDATE article SET like_count = CASE id",
+            "<foreach collection='articles' item='a'>WHEN #{a.id} THEN #{a.likeCount} </foreach>",
+            "END WHERE id IN",
+            "<foreach collection='articles' item='a' open='(' separator=',' close=')'>#{a.id}</foreach>",
+            "</script>"
+    })
+    void updateLikeCounts(@Param("articles") List<Article> articles);
+
     @Select("SELECT COUNT(*) FROM article")
     Long count();
 
@@ -17,6 +17,24 @@ public interface ArticleViewMapper {
   @Update("UPDATE article_view SET view_count = view_count + 1, update_time = now() WHERE article_id = #{articleId}")
   void incrementView(Integer articleId);
 
+  /**
+   * 批量累加访问量（依赖 article_view.article_id 上的唯一索引：
+   * ALTER TABLE article_view ADD UNIQUE KEY uk_article_id (article_id)）；
+   * 与 article 表关联，布隆过滤器误判放行的不存在的文章ID不会写入
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO article_view(article_id, view_count, create_time, update_time)",
+      "SELECT a.id, v.cnt, now(), now() FROM article a JOIN (",
+      "<foreach collection='views' item='v' separator='UNION ALL'>",
+      "SELECT #{v.articleId} AS article_id, #{v.viewCount} AS cnt",
+      "</foreach>",
+      ") v ON v.article_id = a.id",
+      "ON DUPLICATE KEY UPDATE view_count = article_view.view_count + VALUES(view_count), update_time = now()",
+      "</script>"
+  })
+  void batchIncrement(@Param("views") List<ArticleView> views);
+
   @Select("SELECT * FROM article_view ORDER BY view_count DESC LIMIT #{limit}")
   List<ArticleView> findTopViewed(Integer limit);
 
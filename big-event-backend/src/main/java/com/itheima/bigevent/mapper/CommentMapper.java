@@ -26,6 +26,28 @@ public interface CommentMapper {
   @Select("SELECT * FROM comment WHERE article_id = #{articleId} ORDER BY create_time DESC")
   List<Comment> findByArticleId(Integer articleId);
 
+  // 按游标分页查询一级评论（id 倒序，cursor 为空表示第一页）
+  // 建议索引：comment(article_id, parent_id, id)
+  @Select({
+      "<script>",
+      "SELECT * FROM comment WHERE article_id = #{articleId} AND parent_id IS NULL",
+      "<if test='cursor != null'>AND id &lt; #{cursor}</if>",
+      "ORDER BY id DESC LIMIT #{size}",
+      "</script>"
+  })
+  List<Comment> findRootCommentsByCursor(@Param("articleId") Integer articleId, @Param("cursor") Integer cursor,
+      @Param("size") Integer size);
+
+  // 批量查询多个一级评论的子评论（建议索引：comment(parent_id)）
+  @Select({
+      "<script>",
+      "SELECT * FROM comment WHERE parent_id IN",
+      "<foreach collection='parentIds' item='parentId' open='(' separator=',' close=')'>#{parentId}</foreach>",
+      "ORDER BY create_time ASC",
+      "</script>"
+  })
+  List<Comment> findChildCommentsByParentIds(@Param("parentIds") List<Integer> parentIds);
+
   @Select("SELECT * FROM comment WHERE id = #{id}")
   Comment findById(Integer id);
 
@@ -35,6 +57,10 @@ public interface CommentMapper {
   @Delete("DELETE FROM comment WHERE id = #{id}")
   void delete(Integer id);
 
+  // 删除评论及其子评论
+  @Delete("DELETE FROM comment WHERE id = #{id} OR parent_id = #{id}")
+  void deleteWithChildren(Integer id);
+
   // 删除文章的所有评论
   @Delete("DELETE FROM comment WHERE article_id = #{articleId}")
   void deleteByArticleId(Integer articleId);
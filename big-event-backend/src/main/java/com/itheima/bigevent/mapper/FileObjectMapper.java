@@ -0,0 +1,86 @@
+package com.itheima.bigevent.mapper;
+
+import com.itheima.bigevent.pojo.FileObject;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 文件对象 Mapper
+ * 表结构：
+ * CREATE TABLE file_object (
+ *   id BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *   sha256 CHAR(64) NOT NULL,
+ *   object_key VARCHAR(200) NOT NULL,
+ *   url VARCHAR(500) NOT NULL,
+ *   size BIGINT NOT NULL,
+ *   content_type VARCHAR(100),
+ *   thumb_url VARCHAR(500),
+ *   medium_url VARCHAR(500),
+ *   thumb_attempts INT NOT NULL DEFAULT 0,
+ *   ref_count INT NOT NULL DEFAULT 1,
+ *   create_time DATETIME NOT NULL,
+ *   update_time DATETIME NOT NULL,
+ *   UNIQUE KEY uk_sha256 (sha256),
+ *   KEY idx_url (url(191))
+ * );
+ * 已有表升级：ALTER TABLE file_object ADD COLUMN thumb_attempts INT NOT NULL DEFAULT 0 AFTER medium_url;
+ */
+@Mapper
+public interface FileObjectMapper {
+
+        @Select("select * from file_object where sha256 = #{sha256}")
+        FileObject findBySha256(String sha256);
+
+        // 并发上传相同的新文件时只保留一行，引用次数累加
+        @Insert("insert into file_object(sha256, object_key, url, size, content_type, ref_count, create_time, update_time) " +
+                        "values(#{sha256}, #{objectKey}, #{url}, #{size}, #{contentType}, 1, now(), now()) " +
+                        "on duplicate key update ref_count = ref_count + 1, update_time = now()")
+        void insert(FileObject fileObject);
+
+        // 按行 ID 累加，返回 0 表示该行已被释放删除，调用方需重新上传
+        @Update("update file_object set ref_count = ref_count + 1, update_time = now() where id = #{id}")
+        int incrementRefCount(Long id);
+
+        @Select("select * from file_object where url = #{url}")
+        FileObject findByUrl(String url);
+
+        @Update("update file_object set ref_count = ref_count - 1, update_time = now() where id = #{id} and ref_count > 0")
+        int decrementRefCount(Long id);
+
+        // 引用次数归零且相册图片、相册封面、文章封面、用户头像都不再使用该地址时才删除
+        @Delete("delete from file_object where id = #{id} and ref_count <= 0 " +
+                        "and not exists (select 1 from album_image i where i.image_url = #{url}) " +
+                        "and not exists (select 1 from album a where a.cover_img = #{url}) " +
+                        "and not exists (select 1 from article t where t.cover_img = #{url}) " +
+                        "and not exists (select 1 from user u where u.user_pic = #{url})")
+        int deleteUnreferenced(@Param("id") Long id, @Param("url") String url);
+
+        @Select({
+                        "<script>",
+                        "select * from file_object where url in",
+                        "<foreach collection='urls' item='url' open='(' separator=',' close=')'>#{url}</foreach>",
+                        "</script>"
+        })
+        List<FileObject> findByUrls(@Param("urls") List<String> urls);
+
+        // 尚未生成缩略图的图片（创建超过一分钟，排除正在处理的和失败次数已达上限的），失败过的排在后面
+        @Select("select * from file_object where thumb_url is null and content_type like 'image/%' " +
+                        "and thumb_attempts < #{maxAttempts} " +
+                        "and create_time < date_sub(now(), interval 1 minute) " +
+                        "order by thumb_attempts, id limit #{limit}")
+        List<FileObject> findPendingThumbnails(@Param("limit") Integer limit, @Param("maxAttempts") Integer maxAttempts);
+
+        @Update("update file_object set thumb_attempts = thumb_attempts + 1, update_time = now() where id = #{id}")
+        void incrementThumbAttempts(Long id);
+
+        @Update("update file_object set thumb_url = #{thumbUrl}, medium_url = #{mediumUrl}, update_time = now() " +
+                        "where id = #{id}")
+        void updateThumbnails(@Param("id") Long id, @Param("thumbUrl") String thumbUrl,
+                        @Param("mediumUrl") String mediumUrl);
+}
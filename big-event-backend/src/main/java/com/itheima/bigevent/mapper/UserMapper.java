@@ -13,6 +13,9 @@ public interface UserMapper {
             "values(#{username},#{password},now(),now())")
     void add(final String username, final String password);
 
+    @Select("select * from user where id=#{id}")
+    User findById(final Integer id);
+
     @Select("select * from user where username=#{username}")
     User findByUsername(final String username);
 
@@ -20,6 +20,8 @@ public class Album {
   private LocalDateTime createTime;
   private LocalDateTime updateTime;
   private List<AlbumImage> images;
+  private Integer imageCount; // 图片数量（仅摘要列表填充）
+  private String coverThumb; // 封面小图（仅摘要列表填充）
 
   public interface Add extends Default {
   }
@@ -16,6 +16,8 @@ public class AlbumImage {
     private String imageName;
     private String imageDesc;
     private Integer sortOrder;
+    private String thumbUrl; // 小图（列表展示），缩略图生成前为空
+    private String mediumUrl; // 中图（详情展示），缩略图生成前为空
     private LocalDateTime createTime;
 }
 
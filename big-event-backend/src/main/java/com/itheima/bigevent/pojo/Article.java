@@ -41,6 +41,7 @@ public class Article {
     // 统计字段
     private Integer likeCount;// 点赞数
     private Integer favoriteCount;// 收藏数
+    private Integer viewCount;// 访问量（仅列表/热门场景填充）
 
     public interface Add extends Default {
 
@@ -0,0 +1,28 @@
+package com.itheima.bigevent.pojo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文章点赞记录实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleLike {
+
+  private Integer articleId;
+
+  // 登录用户ID，匿名点赞时为 null
+  private Integer userId;
+
+  // 匿名点赞时按 IP 区分
+  private String ip;
+
+  @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+  private LocalDateTime createTime;
+}
@@ -0,0 +1,16 @@
+package com.itheima.bigevent.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//游标分页返回结果对象
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage <T>{
+    private List<T> items;//当前页数据集合
+    private Integer nextCursor;//下一页游标，为 null 表示没有更多数据
+}
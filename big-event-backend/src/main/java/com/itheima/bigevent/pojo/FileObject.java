@@ -0,0 +1,48 @@
+package com.itheima.bigevent.pojo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按内容哈希存储的文件
+ */
+@Data
+public class FileObject {
+
+    private Long id;
+
+    /** 文件内容的 SHA-256（十六进制） */
+    private String sha256;
+
+    /** 存储对象名 */
+    private String objectKey;
+
+    /** 访问地址 */
+    private String url;
+
+    /** 文件大小（字节） */
+    private Long size;
+
+    /** 文件类型 */
+    private String contentType;
+
+    /** 小图地址，缩略图生成前为空；非图片或生成失败时与原图相同 */
+    private String thumbUrl;
+
+    /** 中图地址 */
+    private String mediumUrl;
+
+    /** 缩略图生成失败次数 */
+    private Integer thumbAttempts;
+
+    /** 引用次数（每次上传相同内容加一，相册移除图片时减一，归零且无引用时删除文件） */
+    private Integer refCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
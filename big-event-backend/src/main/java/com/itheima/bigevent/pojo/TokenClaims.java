@@ -0,0 +1,15 @@
+package com.itheima.bigevent.pojo;
+
+/**
+ * 登录令牌中的信息
+ *
+ * @param user       令牌所属用户
+ * @param rememberMe 是否为"记住我"令牌
+ * @param expiresAt  过期时间（毫秒时间戳）
+ */
+public record TokenClaims(UserContext user, boolean rememberMe, long expiresAt) {
+
+    public Integer id() {
+        return user.id();
+    }
+}
@@ -0,0 +1,31 @@
+package com.itheima.bigevent.pojo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片上传会话
+ */
+@Data
+public class UploadSession {
+
+    private String uploadId;
+
+    /** 原始文件名 */
+    private String fileName;
+
+    /** 文件总大小（字节） */
+    private Long fileSize;
+
+    /** 分片大小（字节），最后一片可以更小 */
+    private Integer chunkSize;
+
+    /** 分片总数 */
+    private Integer totalChunks;
+
+    private String contentType;
+
+    /** 已接收的分片序号（从 0 开始），仅查询状态时填充 */
+    private List<Integer> receivedChunks;
+}
@@ -0,0 +1,15 @@
+package com.itheima.bigevent.pojo;
+
+/**
+ * 当前请求的登录用户（由登录拦截器从令牌中解析一次，之后只读）
+ *
+ * @param id       用户ID
+ * @param username 用户名
+ * @param role     用户角色: admin-管理员, user-普通用户
+ */
+public record UserContext(Integer id, String username, String role) {
+
+    public boolean isAdmin() {
+        return "admin".equals(role);
+    }
+}
@@ -0,0 +1,25 @@
+package com.itheima.bigevent.pojo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 登录会话（一个设备上的一次登录）
+ */
+@Data
+public class UserSession {
+
+    /** 会话ID（令牌摘要） */
+    private String id;
+
+    /** 登录IP */
+    private String ip;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime expireTime;
+
+    /** 是否为发起本次请求的会话 */
+    private Boolean current;
+}
@@ -1,14 +1,19 @@
 package com.itheima.bigevent.service;
 
 import com.itheima.bigevent.pojo.Album;
+import com.itheima.bigevent.pojo.PageBean;
 
 import java.util.List;
 
 public interface AlbumService {
     void add(Album album);
     List<Album> list();
+    // 分页摘要列表：只包含封面和图片数量
+    PageBean<Album> listSummary(Integer pageNum, Integer pageSize);
     Album findById(Integer id);
     void update(Album album);
     void delete(Integer id);
+    // 清除相册列表缓存（缩略图生成后调用）
+    void evictListCache();
 }
 
@@ -9,11 +9,28 @@ public interface ArticleViewService {
    */
   void incrementView(Integer articleId);
 
+  /**
+   * 记录一次访问：同一访客在去重窗口内重复访问不计数
+   * @param visitorId 访客标识（用户ID或客户端IP）
+   * @return 是否计入访问量
+   */
+  boolean recordView(Integer articleId, String visitorId);
+
   /**
    * 获取文章访问量
    */
   Integer getViewCount(Integer articleId);
 
+  /**
+   * 获取文章独立访客数（HyperLogLog 估算，误差约 0.81%）
+   */
+  Long getUniqueVisitorCount(Integer articleId);
+
+  /**
+   * 获取文章访问量和独立访客数
+   */
+  Map<String, Object> getViewStats(Integer articleId);
+
   /**
    * 获取热门文章ID列表
    */
@@ -3,6 +3,8 @@ package com.itheima.bigevent.service;
 import com.itheima.bigevent.pojo.Article;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 缓存服务接口
@@ -20,7 +22,18 @@ public interface CacheService {
     Article getCachedArticle(Integer articleId);
 
     /**
-     * 删除文章缓存
+     * 获取文章详情，未命中时调用 loader 回源并写入缓存
+     * 同一文章的并发回源会被合并，逻辑过期后返回旧值并在后台刷新
+     */
+    Article getArticle(Integer articleId, Function<Integer, Article> loader);
+
+    /**
+     * 记录不存在的文章（短期空值缓存，防止缓存穿透）
+     */
+    void cacheMissingArticle(Integer articleId);
+
+    /**
+     * 删除文章缓存（包括空值缓存）
      */
     void evictArticleCache(Integer articleId);
 
@@ -38,5 +51,16 @@ public interface CacheService {
      * 清除所有文章缓存
      */
     void evictAllArticleCache();
+
+    /**
+     * 获取各级缓存的命中/未命中/淘汰统计
+     */
+    Map<String, Object> getCacheStats();
+
+    /**
+     * 全部文章缓存已失效（本节点或其他节点清除缓存后代号前进时在本节点发布）
+     */
+    record ArticleCacheFlushedEvent(long generation) {
+    }
 }
 
@@ -1,6 +1,7 @@
 package com.itheima.bigevent.service;
 
 import com.itheima.bigevent.pojo.Comment;
+import com.itheima.bigevent.pojo.CursorPage;
 
 import java.util.List;
 
@@ -16,6 +17,12 @@ public interface CommentService {
    */
   List<Comment> getArticleComments(Integer articleId);
 
+  /**
+   * 按游标分页获取一级评论（每条包含子评论）
+   * @param cursor 上一页返回的 nextCursor，第一页传 null
+   */
+  CursorPage<Comment> getArticleComments(Integer articleId, Integer cursor, Integer size);
+
   /**
    * 点赞评论
    */
@@ -0,0 +1,22 @@
+package com.itheima.bigevent.service;
+
+import com.itheima.bigevent.pojo.Article;
+
+import java.util.List;
+
+/**
+ * 热门文章服务
+ * 定时计算热门榜单（访问量、点赞数、发布时间衰减），读取时只访问内存或 Redis
+ */
+public interface HotArticleService {
+
+    /**
+     * 获取热门文章摘要列表（不含正文）
+     */
+    List<Article> getHotFeed(Integer limit);
+
+    /**
+     * 重新计算热门榜单
+     */
+    void refresh();
+}
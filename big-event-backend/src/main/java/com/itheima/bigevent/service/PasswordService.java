@@ -0,0 +1,31 @@
+package com.itheima.bigevent.service;
+
+import java.util.Map;
+
+/**
+ * 密码哈希服务
+ * BCrypt 计算在独立的有界线程池中执行，避免撞库流量占满 Tomcat 请求线程；
+ * 线程池和队列已满或等待超时时抛出 PasswordServiceBusyException（返回 503）
+ */
+public interface PasswordService {
+
+    /**
+     * 计算密码哈希
+     */
+    String encode(String rawPassword);
+
+    /**
+     * 校验密码
+     */
+    boolean matches(String rawPassword, String encodedPassword);
+
+    /**
+     * 哈希的计算强度与当前配置不一致，需要在登录成功后重新计算
+     */
+    boolean needsRehash(String encodedPassword);
+
+    /**
+     * 获取排队耗时、哈希耗时和拒绝次数统计
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,50 @@
+package com.itheima.bigevent.service;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象存储服务
+ */
+public interface StorageService {
+
+    /**
+     * 上传文件
+     * @param objectName    对象名
+     * @param inputStream   文件内容
+     * @param contentLength 文件大小（字节），未知时传 -1
+     * @param contentType   文件类型，可为 null
+     * @return 文件访问地址
+     */
+    String upload(String objectName, InputStream inputStream, long contentLength, String contentType);
+
+    /**
+     * 按内容哈希上传文件：相同内容只存储一份，重复上传直接返回已有地址
+     * @param source        文件内容（需要可重复读取，如 MultipartFile）
+     * @param extension     扩展名（含点，如 .jpg）
+     * @param contentLength 文件大小（字节）
+     * @param contentType   文件类型，可为 null
+     * @return 文件访问地址
+     */
+    String uploadDeduplicated(InputStreamSource source, String extension, long contentLength, String contentType);
+
+    /**
+     * 释放按内容去重上传的文件：引用次数减一，归零且不再被任何记录使用时删除文件和缩略图。
+     * 非去重上传的地址直接忽略
+     */
+    void release(List<String> urls);
+
+    /**
+     * 获取上传统计（次数、字节数、耗时、吞吐量）
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * 文件不再被引用的事件，在事务内发布，提交后由存储服务释放
+     */
+    record FilesReleasedEvent(List<String> urls) {
+    }
+}
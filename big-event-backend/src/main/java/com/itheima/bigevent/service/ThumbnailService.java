@@ -0,0 +1,28 @@
+package com.itheima.bigevent.service;
+
+import com.itheima.bigevent.pojo.FileObject;
+
+import java.util.Map;
+
+/**
+ * 缩略图服务
+ * 上传图片后在后台线程池中生成小图和中图，请求线程不参与图片解码
+ */
+public interface ThumbnailService {
+
+    /**
+     * 提交缩略图任务
+     * @return 是否已提交；队列已满时返回 false，由定时任务稍后补做
+     */
+    boolean submit(FileObject fileObject);
+
+    /**
+     * 删除已生成的小图和中图（文件被释放时调用）
+     */
+    void deleteVariants(FileObject fileObject);
+
+    /**
+     * 获取处理统计（队列长度、拒绝次数、解码和缩放耗时）
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,41 @@
+package com.itheima.bigevent.service;
+
+import com.itheima.bigevent.pojo.TokenClaims;
+import com.itheima.bigevent.pojo.UserSession;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 登录令牌服务
+ * 负责会话的保存、校验和吊销；校验结果在本地缓存，吊销通过 Redis 发布/订阅通知所有节点
+ */
+public interface TokenService {
+
+    /**
+     * 保存登录会话，超出单用户会话上限时踢掉最早的会话
+     */
+    void store(String token, Integer userId, Duration ttl);
+
+    /**
+     * 校验令牌
+     * @return 令牌中的用户信息；令牌无效、已过期或已吊销时返回 null
+     */
+    TokenClaims verify(String token);
+
+    /**
+     * 吊销令牌（退出登录、刷新令牌时调用）
+     */
+    void revoke(String token);
+
+    /**
+     * 吊销用户的全部会话（退出所有设备、修改密码时调用）
+     * @return 被吊销的会话数
+     */
+    int revokeAll(Integer userId);
+
+    /**
+     * 查询用户当前有效的会话
+     */
+    List<UserSession> listSessions(Integer userId, String currentToken);
+}
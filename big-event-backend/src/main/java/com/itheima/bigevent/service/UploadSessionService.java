@@ -0,0 +1,37 @@
+package com.itheima.bigevent.service;
+
+import com.itheima.bigevent.pojo.UploadSession;
+
+import java.io.InputStream;
+
+/**
+ * 分片上传服务
+ * 初始化会话 -> 逐片上传（可乱序、可重传）-> 完成合并
+ */
+public interface UploadSessionService {
+
+    /**
+     * 创建上传会话
+     * @param chunkSize 期望的分片大小，为 null 时使用默认值
+     */
+    UploadSession init(String fileName, long fileSize, Integer chunkSize, String contentType);
+
+    /**
+     * 写入一个分片
+     * @param index    分片序号（从 0 开始）
+     * @param body     分片内容
+     * @param checksum 分片内容的 SHA-256（十六进制）
+     */
+    void writeChunk(String uploadId, int index, InputStream body, String checksum);
+
+    /**
+     * 查询会话状态（含已接收的分片），用于断点续传
+     */
+    UploadSession getStatus(String uploadId);
+
+    /**
+     * 所有分片接收完成后保存文件
+     * @return 文件访问地址
+     */
+    String complete(String uploadId);
+}
@@ -6,6 +6,13 @@ public interface UserService {
 
     User findByUsername(final String username);
 
+    User findById(final Integer id);
+
+    /**
+     * 查询用户（包含密码哈希），用于登录和修改密码时校验密码
+     */
+    User findForAuthentication(final String username);
+
     void register(final String username, final String password);
 
     void update(final User user);
@@ -14,6 +21,11 @@ public interface UserService {
 
     void updatePwd(final String newPwd);
 
+    /**
+     * 按当前配置的强度重新计算密码哈希（登录成功后调用）
+     */
+    void rehashPassword(final Integer id, final String rawPassword);
+
     java.util.List<User> findAllUsers(final boolean isAdmin);
 
     void updateRole(final Integer id, final String role);
@@ -1,26 +1,76 @@
 package com.itheima.bigevent.service.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
 import com.itheima.bigevent.mapper.AlbumImageMapper;
 import com.itheima.bigevent.mapper.AlbumMapper;
+import com.itheima.bigevent.mapper.FileObjectMapper;
 import com.itheima.bigevent.pojo.Album;
 import com.itheima.bigevent.pojo.AlbumImage;
+import com.itheima.bigevent.pojo.FileObject;
+import com.itheima.bigevent.pojo.PageBean;
 import com.itheima.bigevent.service.AlbumService;
+import com.itheima.bigevent.service.StorageService;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * 相册服务
+ * 列表的图片通过一次 IN 查询批量加载；列表结果缓存在 Redis，键中带版本号，
+ * 相册写操作提交后递增版本号即可让所有列表缓存失效
+ */
 @Service
 public class AlbumServiceImpl implements AlbumService {
 
+    private static final Logger log = LoggerFactory.getLogger(AlbumServiceImpl.class);
+
+    private static final String ALBUM_VERSION_KEY = "album:ver";
+    private static final String ALBUM_LIST_PREFIX = "album:list:";
+    private static final String ALBUM_SUMMARY_PREFIX = "album:summary:";
+
     @Autowired
     private AlbumMapper albumMapper;
 
     @Autowired
     private AlbumImageMapper albumImageMapper;
 
+    @Autowired
+    private FileObjectMapper fileObjectMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${album.cache.ttl-minutes:10}")
+    private long cacheTtlMinutes;
+
     @Override
     @Transactional
     public void add(Album album) {
@@ -30,21 +80,51 @@ public class AlbumServiceImpl implements AlbumService {
         if (album.getImages() != null && !album.getImages().isEmpty()) {
             for (AlbumImage image : album.getImages()) {
                 image.setAlbumId(album.getId());
-                albumImageMapper.add(image);
             }
+            fillThumbnails(album.getImages());
+            albumImageMapper.batchAdd(album.getImages());
         }
+        evictAlbumCache();
     }
 
     @Override
     public List<Album> list() {
+        String key = ALBUM_LIST_PREFIX + currentVersion();
+        List<Album> cached = readCache(key, new TypeReference<List<Album>>() {
+        });
+        if (cached != null) {
+            return cached;
+        }
+
         List<Album> albums = albumMapper.list();
-        for (Album album : albums) {
-            List<AlbumImage> images = albumImageMapper.findByAlbumId(album.getId());
-            album.setImages(images);
+        if (!albums.isEmpty()) {
+            List<Integer> albumIds = albums.stream().map(Album::getId).collect(Collectors.toList());
+            Map<Integer, List<AlbumImage>> imagesByAlbum = albumImageMapper.findByAlbumIds(albumIds).stream()
+                    .collect(Collectors.groupingBy(AlbumImage::getAlbumId));
+            for (Album album : albums) {
+                album.setImages(imagesByAlbum.getOrDefault(album.getId(), new ArrayList<>()));
+            }
         }
+        writeCache(key, albums);
         return albums;
     }
 
+    @Override
+    public PageBean<Album> listSummary(Integer pageNum, Integer pageSize) {
+        String key = ALBUM_SUMMARY_PREFIX + currentVersion() + ":" + pageNum + ":" + pageSize;
+        PageBean<Album> cached = readCache(key, new TypeReference<PageBean<Album>>() {
+        });
+        if (cached != null) {
+            return cached;
+        }
+
+        PageHelper.startPage(pageNum, pageSize);
+        Page<Album> page = (Page<Album>) albumMapper.listSummary();
+        PageBean<Album> pageBean = new PageBean<>(page.getTotal(), page.getResult());
+        writeCache(key, pageBean);
+        return pageBean;
+    }
+
     @Override
     public Album findById(Integer id) {
         Album album = albumMapper.findById(id);
@@ -59,24 +139,158 @@ public class AlbumServiceImpl implements AlbumService {
     @Transactional
     public void update(Album album) {
         albumMapper.update(album);
-        
-        // 删除旧图片
-        albumImageMapper.deleteByAlbumId(album.getId());
-        
-        // 添加新图片
-        if (album.getImages() != null && !album.getImages().isEmpty()) {
-            for (AlbumImage image : album.getImages()) {
-                image.setAlbumId(album.getId());
-                albumImageMapper.add(image);
-            }
+
+        // 与已有图片比对，只执行需要的插入、更新和删除
+        List<AlbumImage> stored = albumImageMapper.findByAlbumId(album.getId());
+        List<AlbumImage> incoming = album.getImages() != null ? album.getImages() : List.of();
+        fillThumbnails(incoming);
+        ImageDiff diff = diff(album.getId(), stored, incoming);
+        if (!diff.deletes().isEmpty()) {
+            albumImageMapper.deleteByIds(album.getId(), diff.deletes());
+            List<String> removed = stored.stream()
+                    .filter(image -> diff.deletes().contains(image.getId()))
+                    .map(AlbumImage::getImageUrl)
+                    .collect(Collectors.toList());
+            // 提交后释放不再使用的文件
+            eventPublisher.publishEvent(new StorageService.FilesReleasedEvent(removed));
         }
+        if (!diff.updates().isEmpty()) {
+            albumImageMapper.batchUpdate(album.getId(), diff.updates());
+        }
+        if (!diff.inserts().isEmpty()) {
+            albumImageMapper.batchAdd(diff.inserts());
+        }
+        evictAlbumCache();
     }
 
     @Override
     @Transactional
     public void delete(Integer id) {
+        List<String> removed = albumImageMapper.findByAlbumId(id).stream()
+                .map(AlbumImage::getImageUrl)
+                .collect(Collectors.toList());
         albumImageMapper.deleteByAlbumId(id);
         albumMapper.delete(id);
+        if (!removed.isEmpty()) {
+            eventPublisher.publishEvent(new StorageService.FilesReleasedEvent(removed));
+        }
+        evictAlbumCache();
+    }
+
+    @Override
+    public void evictListCache() {
+        evictAlbumCache();
+    }
+
+    /**
+     * 按图片地址一次查出已生成的缩略图；尚未生成的留空，生成后由缩略图任务回填
+     */
+    private void fillThumbnails(List<AlbumImage> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+        List<String> urls = images.stream().map(AlbumImage::getImageUrl).distinct().collect(Collectors.toList());
+        Map<String, FileObject> files = fileObjectMapper.findByUrls(urls).stream()
+                .collect(Collectors.toMap(FileObject::getUrl, f -> f, (a, b) -> a));
+        for (AlbumImage image : images) {
+            FileObject file = files.get(image.getImageUrl());
+            image.setThumbUrl(file != null ? file.getThumbUrl() : null);
+            image.setMediumUrl(file != null ? file.getMediumUrl() : null);
+        }
+    }
+
+    /**
+     * 比对结果：待插入的图片、字段有变化的图片、待删除的图片ID
+     */
+    record ImageDiff(List<AlbumImage> inserts, List<AlbumImage> updates, List<Integer> deletes) {
+    }
+
+    /**
+     * 新图片先按ID匹配已有图片，没有ID（或ID不属于该相册）时按图片地址匹配；
+     * 匹配上且字段未变化的不做任何操作，未匹配上的已有图片删除
+     */
+    static ImageDiff diff(Integer albumId, List<AlbumImage> stored, List<AlbumImage> incoming) {
+        Map<Integer, AlbumImage> unmatched = new LinkedHashMap<>();
+        // 图片地址 -> 已有图片（按原顺序），按ID匹配走的图片在取出时跳过
+        Map<String, Deque<AlbumImage>> byUrl = new HashMap<>();
+        for (AlbumImage image : stored) {
+            unmatched.put(image.getId(), image);
+            byUrl.computeIfAbsent(image.getImageUrl(), url -> new ArrayDeque<>()).add(image);
+        }
+
+        List<AlbumImage> inserts = new ArrayList<>();
+        List<AlbumImage> updates = new ArrayList<>();
+        for (AlbumImage image : incoming) {
+            image.setAlbumId(albumId);
+            AlbumImage match = image.getId() != null ? unmatched.remove(image.getId()) : null;
+            Deque<AlbumImage> candidates = match == null ? byUrl.get(image.getImageUrl()) : null;
+            while (candidates != null && match == null && !candidates.isEmpty()) {
+                match = unmatched.remove(candidates.poll().getId());
+            }
+            if (match == null) {
+                image.setId(null);
+                inserts.add(image);
+            } else {
+                image.setId(match.getId());
+                if (!Objects.equals(match.getImageUrl(), image.getImageUrl())
+                        || !Objects.equals(match.getImageName(), image.getImageName())
+                        || !Objects.equals(match.getImageDesc(), image.getImageDesc())
+                        || !Objects.equals(match.getSortOrder(), image.getSortOrder())) {
+                    updates.add(image);
+                }
+            }
+        }
+        return new ImageDiff(inserts, updates, new ArrayList<>(unmatched.keySet()));
+    }
+
+    private String currentVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(ALBUM_VERSION_KEY);
+            return version != null ? version : "0";
+        } catch (Exception e) {
+            log.warn("[相册] 读取缓存版本失败: {}", e.getMessage());
+            return "0";
+        }
+    }
+
+    private <T> T readCache(String key, TypeReference<T> type) {
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            return json != null ? objectMapper.readValue(json, type) : null;
+        } catch (Exception e) {
+            log.warn("[相册] 读取列表缓存失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
     }
-}
 
+    private void writeCache(String key, Object value) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), cacheTtlMinutes, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("[相册] 写入列表缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 事务提交后递增版本号，避免并发读取在提交前把旧数据写回新版本的缓存
+     */
+    private void evictAlbumCache() {
+        Runnable bump = () -> {
+            try {
+                redisTemplate.opsForValue().increment(ALBUM_VERSION_KEY);
+            } catch (Exception e) {
+                log.warn("[相册] 更新缓存版本失败: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+}
@@ -1,43 +1,150 @@
 package com.itheima.bigevent.service.impl;
 
+import com.itheima.bigevent.cache.ArticleBloomFilter;
 import com.itheima.bigevent.mapper.ArticleLikeMapper;
 import com.itheima.bigevent.mapper.ArticleMapper;
+import com.itheima.bigevent.pojo.Article;
+import com.itheima.bigevent.pojo.ArticleLike;
 import com.itheima.bigevent.service.ArticleLikeService;
 import com.itheima.bigevent.utils.HttpUtil;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * 文章点赞服务实现
+ * 点赞关系和计数保存在 Redis（每篇文章一个点赞人集合 + 一个计数），由 Lua 脚本原子更新；
+ * 每次变更追加到待持久化队列，定时批量写入 article_like 和 article.like_count。
+ * 只为存在的文章创建 Redis 数据，并设置过期时间（每次点赞/取消时续期），避免按ID扫描时无限增长；
+ * 持久化时先把一批变更移到处理中队列，事务提交后才删除，进程中途退出时下次从处理中队列继续
  */
 @Service
 public class ArticleLikeServiceImpl implements ArticleLikeService {
 
+  private static final Logger log = LoggerFactory.getLogger(ArticleLikeServiceImpl.class);
+
+  private static final String LIKERS_PREFIX = "article:like:set:";
+  private static final String COUNT_PREFIX = "article:like:count:";
+  private static final String PENDING_KEY = "article:like:pending";
+  private static final String PROCESSING_KEY = "article:like:processing";
+  private static final String FLUSH_LOCK_KEY = "article:like:flush:lock";
+
+  private static final String OP_LIKE = "L";
+  private static final String OP_UNLIKE = "U";
+
+  // 返回 -1 表示尚未预热，0 表示状态未变化，1 表示成功；ARGV[3] 为过期秒数
+  static final DefaultRedisScript<Long> LIKE_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('EXISTS', KEYS[2]) == 0 then return -1 end " +
+          "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+          "redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+          "if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+          "redis.call('INCR', KEYS[2]) " +
+          "redis.call('RPUSH', KEYS[3], ARGV[2]) " +
+          "return 1", Long.class);
+
+  static final DefaultRedisScript<Long> UNLIKE_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('EXISTS', KEYS[2]) == 0 then return -1 end " +
+          "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+          "redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+          "if redis.call('SREM', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+          "redis.call('DECR', KEYS[2]) " +
+          "redis.call('RPUSH', KEYS[3], ARGV[2]) " +
+          "return 1", Long.class);
+
+  private static final DefaultRedisScript<Long> IS_LIKED_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('EXISTS', KEYS[2]) == 0 then return -1 end " +
+          "return redis.call('SISMEMBER', KEYS[1], ARGV[1])", Long.class);
+
+  // 用数据库中的点赞人初始化集合和计数；已被其他请求预热时不做任何事；ARGV[1] 为过期秒数，其余为点赞人
+  static final DefaultRedisScript<Long> WARM_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end " +
+          "redis.call('DEL', KEYS[1]) " +
+          "for i = 2, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end " +
+          "redis.call('SET', KEYS[2], redis.call('SCARD', KEYS[1]), 'EX', ARGV[1]) " +
+          "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+          "return 1", Long.class);
+
+  // 取出一批待持久化变更并移入处理中队列；处理中队列非空（上次未完成）时先重做这一批
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+      "local items = redis.call('LRANGE', KEYS[2], 0, -1) " +
+          "if #items > 0 then return items end " +
+          "items = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1) " +
+          "if #items > 0 then " +
+          "  redis.call('LTRIM', KEYS[1], #items, -1) " +
+          "  redis.call('RPUSH', KEYS[2], unpack(items)) " +
+          "end " +
+          "return items", List.class);
+
+  // 持久化失败：把处理中的变更按原顺序放回待持久化队列头部
+  static final DefaultRedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>(
+      "local items = redis.call('LRANGE', KEYS[2], 0, -1) " +
+          "for i = #items, 1, -1 do redis.call('LPUSH', KEYS[1], items[i]) end " +
+          "redis.call('DEL', KEYS[2]) " +
+          "return #items", Long.class);
+
+  private static final DefaultRedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0",
+      Long.class);
+
+  private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+      "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+      Long.class);
+
+  private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(30);
+
   @Autowired
   private ArticleLikeMapper articleLikeMapper;
 
   @Autowired
   private ArticleMapper articleMapper;
 
+  @Autowired
+  private StringRedisTemplate redisTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ArticleBloomFilter articleBloomFilter;
+
+  // 文章点赞数据在 Redis 中的过期时间，每次点赞/取消时续期
+  @Value("${like.cache.ttl-hours:24}")
+  private long cacheTtlHours;
+
+  // 每次持久化处理的最大变更数
+  @Value("${like.flush.batch-size:1000}")
+  private int flushBatchSize;
+
   @Override
   public void like(Integer articleId) {
-    // 获取用户ID（如果已登录）
     Integer userId = getCurrentUserId();
-
-    // 获取IP地址
     String ip = HttpUtil.getClientIp();
 
-    // 检查是否已点赞
-    if (articleLikeMapper.exists(articleId, userId, ip)) {
+    Long result = execute(LIKE_SCRIPT, articleId, member(userId, ip), record(OP_LIKE, articleId, userId, ip));
+    if (result == -1) {
+      throw new RuntimeException("文章不存在");
+    }
+    if (result == 0) {
       throw new RuntimeException("您已经点赞过了");
     }
-
-    // 添加点赞记录
-    articleLikeMapper.insert(articleId, userId, ip);
-
-    // 更新文章点赞数
-    articleMapper.incrementLikeCount(articleId);
   }
 
   @Override
@@ -45,23 +152,213 @@ public class ArticleLikeServiceImpl implements ArticleLikeService {
     Integer userId = getCurrentUserId();
     String ip = HttpUtil.getClientIp();
 
-    // 删除点赞记录
-    articleLikeMapper.delete(articleId, userId, ip);
-
-    // 更新文章点赞数
-    articleMapper.decrementLikeCount(articleId);
+    // 未点赞时取消点赞不做任何事
+    execute(UNLIKE_SCRIPT, articleId, member(userId, ip), record(OP_UNLIKE, articleId, userId, ip));
   }
 
   @Override
   public Boolean isLiked(Integer articleId) {
     Integer userId = getCurrentUserId();
     String ip = HttpUtil.getClientIp();
-    return articleLikeMapper.exists(articleId, userId, ip);
+    return execute(IS_LIKED_SCRIPT, articleId, member(userId, ip)) == 1;
   }
 
   @Override
   public Integer getLikeCount(Integer articleId) {
-    return articleLikeMapper.countByArticleId(articleId);
+    String count = redisTemplate.opsForValue().get(COUNT_PREFIX + articleId);
+    if (count == null && warm(articleId)) {
+      count = redisTemplate.opsForValue().get(COUNT_PREFIX + articleId);
+    }
+    return count != null ? Integer.parseInt(count) : 0;
+  }
+
+  /**
+   * 定时把点赞变更批量写入数据库；集群内同一时刻只有一个节点执行，保证变更按顺序落库
+   */
+  @Scheduled(fixedDelayString = "${like.flush.interval-ms:2000}")
+  public void flush() {
+    String owner = UUID.randomUUID().toString();
+    try {
+      Boolean locked = redisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, owner, FLUSH_LOCK_TTL);
+      if (!Boolean.TRUE.equals(locked)) {
+        return;
+      }
+    } catch (Exception e) {
+      log.warn("[点赞] 获取持久化锁失败: {}", e.getMessage());
+      return;
+    }
+    try {
+      List<String> records;
+      do {
+        // 每批开始前续期；锁已丢失（如长时间停顿）时停止，避免与其他节点并发落库
+        if (!renewLock(owner)) {
+          log.warn("[点赞] 持久化锁已丢失，停止本轮持久化");
+          return;
+        }
+        records = drain();
+        if (!records.isEmpty() && !persist(records)) {
+          return;
+        }
+      } while (records.size() >= flushBatchSize);
+    } finally {
+      redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(FLUSH_LOCK_KEY), owner);
+    }
+  }
+
+  private boolean renewLock(String owner) {
+    Long renewed = redisTemplate.execute(RENEW_LOCK_SCRIPT, Collections.singletonList(FLUSH_LOCK_KEY),
+        owner, String.valueOf(FLUSH_LOCK_TTL.toMillis()));
+    return renewed != null && renewed == 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> drain() {
+    List<String> records = redisTemplate.execute(DRAIN_SCRIPT, List.of(PENDING_KEY, PROCESSING_KEY),
+        String.valueOf(flushBatchSize));
+    return records != null ? records : Collections.emptyList();
+  }
+
+  /**
+   * 合并后的一批变更
+   * @param changed 状态发生变化的点赞关系（先按这些关系删除，保证重做同一批时结果不变）
+   * @param inserts 最终为已点赞的关系
+   */
+  record MergedChanges(List<ArticleLike> changed, List<ArticleLike> inserts, Set<Integer> articleIds) {
+  }
+
+  /**
+   * 合并同一用户对同一文章的多次变更
+   */
+  static MergedChanges merge(List<String> records) {
+    // key: 文章ID|点赞人，value: [首次操作, 最后一次操作]
+    Map<String, String[]> ops = new LinkedHashMap<>();
+    Map<String, ArticleLike> likes = new LinkedHashMap<>();
+    Set<Integer> articleIds = new LinkedHashSet<>();
+    for (String record : records) {
+      String[] parts = record.split("\\|", 4);
+      Integer articleId = Integer.valueOf(parts[1]);
+      Integer userId = parts[2].isEmpty() ? null : Integer.valueOf(parts[2]);
+      String key = articleId + "|" + member(userId, parts[3]);
+      ops.computeIfAbsent(key, k -> new String[]{parts[0], parts[0]})[1] = parts[0];
+      likes.putIfAbsent(key, new ArticleLike(articleId, userId, parts[3], null));
+      articleIds.add(articleId);
+    }
+
+    List<ArticleLike> changed = new ArrayList<>();
+    List<ArticleLike> inserts = new ArrayList<>();
+    for (Map.Entry<String, String[]> entry : ops.entrySet()) {
+      // 首次是点赞说明原来未点赞，首次是取消说明原来已点赞；最终状态与原状态相同则无需写库
+      boolean before = OP_UNLIKE.equals(entry.getValue()[0]);
+      boolean after = OP_LIKE.equals(entry.getValue()[1]);
+      if (before == after) {
+        continue;
+      }
+      ArticleLike like = likes.get(entry.getKey());
+      changed.add(like);
+      if (after) {
+        inserts.add(like);
+      }
+    }
+    return new MergedChanges(changed, inserts, articleIds);
+  }
+
+  /**
+   * 写入一批变更，事务提交后才从处理中队列删除；失败时放回待持久化队列头部
+   * @return 是否成功
+   */
+  private boolean persist(List<String> records) {
+    MergedChanges merged = merge(records);
+    List<ArticleLike> changed = merged.changed();
+    List<ArticleLike> inserts = merged.inserts();
+    Set<Integer> articleIds = merged.articleIds();
+
+    List<Article> counts = new ArrayList<>();
+    List<Integer> ids = new ArrayList<>(articleIds);
+    List<String> values = redisTemplate.opsForValue().multiGet(ids.stream().map(id -> COUNT_PREFIX + id).toList());
+    for (int i = 0; i < ids.size(); i++) {
+      String value = values != null ? values.get(i) : null;
+      if (value != null) {
+        Article article = new Article();
+        article.setId(ids.get(i));
+        article.setLikeCount(Math.max(Integer.parseInt(value), 0));
+        counts.add(article);
+      }
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (!changed.isEmpty()) {
+          articleLikeMapper.batchDelete(changed);
+        }
+        if (!inserts.isEmpty()) {
+          articleLikeMapper.batchInsert(inserts);
+        }
+        if (!counts.isEmpty()) {
+          articleMapper.updateLikeCounts(counts);
+        }
+      });
+    } catch (Exception e) {
+      log.error("[点赞] 持久化失败，变更已放回队列: {}", e.getMessage());
+      redisTemplate.execute(REQUEUE_SCRIPT, List.of(PENDING_KEY, PROCESSING_KEY));
+      return false;
+    }
+    // 已提交；此处删除失败时下次会重做这一批，结果相同
+    redisTemplate.delete(PROCESSING_KEY);
+    log.debug("[点赞] 持久化完成: 变更={}, 新增={}, 删除={}", records.size(), inserts.size(),
+        changed.size() - inserts.size());
+    return true;
+  }
+
+  /**
+   * 执行点赞相关脚本；Redis 中没有该文章的数据时先从数据库预热再重试
+   */
+  private Long execute(DefaultRedisScript<Long> script, Integer articleId, String... args) {
+    List<String> keys = List.of(LIKERS_PREFIX + articleId, COUNT_PREFIX + articleId, PENDING_KEY);
+    Object[] argv = new Object[]{args[0], args.length > 1 ? args[1] : "", String.valueOf(ttlSeconds())};
+    Long result = redisTemplate.execute(script, keys, argv);
+    if (result != null && result == -1) {
+      if (!warm(articleId)) {
+        return -1L;
+      }
+      result = redisTemplate.execute(script, keys, argv);
+    }
+    return result != null ? result : 0L;
+  }
+
+  /**
+   * 从数据库加载点赞人；文章不存在时不创建任何 Redis 数据
+   * @return 文章是否存在
+   */
+  private boolean warm(Integer articleId) {
+    if (!articleBloomFilter.mightContain(articleId)) {
+      return false;
+    }
+    List<ArticleLike> likers = articleLikeMapper.findByArticleId(articleId);
+    // 有点赞记录说明文章存在；否则可能是布隆过滤器误判，再查一次文章表
+    if (likers.isEmpty() && articleMapper.findById(articleId) == null) {
+      return false;
+    }
+    List<Object> argv = new ArrayList<>(likers.size() + 1);
+    argv.add(String.valueOf(ttlSeconds()));
+    likers.forEach(l -> argv.add(member(l.getUserId(), l.getIp())));
+    redisTemplate.execute(WARM_SCRIPT, List.of(LIKERS_PREFIX + articleId, COUNT_PREFIX + articleId), argv.toArray());
+    return true;
+  }
+
+  private long ttlSeconds() {
+    return Duration.ofHours(cacheTtlHours).toSeconds();
+  }
+
+  /**
+   * 点赞人标识：登录用户按用户ID，匿名用户按IP
+   */
+  private static String member(Integer userId, String ip) {
+    return userId != null ? "u:" + userId : "ip:" + ip;
+  }
+
+  // 待持久化记录：操作|文章ID|用户ID|IP
+  private String record(String op, Integer articleId, Integer userId, String ip) {
+    return op + "|" + articleId + "|" + (userId != null ? userId : "") + "|" + ip;
   }
 
   /**
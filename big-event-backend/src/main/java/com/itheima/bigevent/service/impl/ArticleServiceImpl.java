@@ -2,6 +2,7 @@ package com.itheima.bigevent.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.itheima.bigevent.cache.ArticleBloomFilter;
 import com.itheima.bigevent.mapper.ArticleMapper;
 import com.itheima.bigevent.pojo.Article;
 import com.itheima.bigevent.pojo.PageBean;
@@ -20,10 +21,16 @@ public class ArticleServiceImpl implements ArticleService {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private ArticleBloomFilter articleBloomFilter;
+
     @Override
     public void add(final Article article) {
         article.setCreateUser(ThreadLocalUtil.getCurrentUserIdRequired());
         articleMapper.add(article);
+        articleBloomFilter.add(article.getId());
+        // 清除该ID可能存在的空值缓存
+        cacheService.evictArticleCache(article.getId());
     }
 
     @Override
@@ -56,21 +63,12 @@ public class ArticleServiceImpl implements ArticleService {
 
     @Override
     public Article findById(final Integer id) {
-        // 先从缓存获取
-        Article cached = cacheService.getCachedArticle(id);
-        if (cached != null) {
-            return cached;
+        // 布隆过滤器判定不存在的ID直接返回，不访问 Redis 和数据库
+        if (!articleBloomFilter.mightContain(id)) {
+            return null;
         }
-
-        // 缓存未命中，从数据库获取
-        Article article = articleMapper.findById(id);
-
-        // 缓存文章
-        if (article != null) {
-            cacheService.cacheArticle(article);
-        }
-
-        return article;
+        // 先从缓存获取，未命中时由缓存服务合并并发请求后回源
+        return cacheService.getArticle(id, articleMapper::findById);
     }
 
     @Override
@@ -83,7 +81,8 @@ public class ArticleServiceImpl implements ArticleService {
     @Override
     public void delete(final Integer id) {
         articleMapper.delete(id);
-        // 删除后清除缓存
+        // 删除后清除缓存，并记录空值避免后续请求回源
         cacheService.evictArticleCache(id);
+        cacheService.cacheMissingArticle(id);
     }
 }
@@ -1,36 +1,183 @@
 package com.itheima.bigevent.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itheima.bigevent.cache.ArticleBloomFilter;
 import com.itheima.bigevent.mapper.ArticleViewMapper;
 import com.itheima.bigevent.pojo.ArticleView;
 import com.itheima.bigevent.service.ArticleViewService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * 文章访问量服务
+ * 访问量先在内存中按文章累加，定时（以及积压过多、应用关闭时）批量写入 MySQL，
+ * 每批一条 INSERT ... ON DUPLICATE KEY UPDATE，进程异常退出最多丢失一个刷新周期内的访问量。
+ * 同一访客在去重窗口内的重复访问直接丢弃；独立访客数用 Redis HyperLogLog 统计，每篇文章固定约 12KB，空闲超过过期时间后重新计数
+ */
 @Service
 public class ArticleViewServiceImpl implements ArticleViewService {
 
+    private static final Logger log = LoggerFactory.getLogger(ArticleViewServiceImpl.class);
+
+    private static final String UV_KEY_PREFIX = "article:uv:";
+
     @Autowired
     private ArticleViewMapper articleViewMapper;
 
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ArticleBloomFilter articleBloomFilter;
+
+    // 访问去重窗口（分钟），窗口内同一访客重复访问不计数
+    @Value("${view.dedup.window-minutes:30}")
+    private long dedupWindowMinutes;
+
+    // 去重记录的最大条数（按 LRU 淘汰，超出后最旧的访客可能被重复计数）
+    @Value("${view.dedup.max-entries:1000000}")
+    private long dedupMaxEntries;
+
+    // 独立访客 HyperLogLog 的过期时间（天），每次写入时续期，长期无人访问的文章不再常驻 Redis
+    @Value("${view.uv.ttl-days:30}")
+    private long uvTtlDays;
+
+    // 最大丢失窗口（刷新周期），单位毫秒
+    @Value("${view.flush.max-loss-ms:5000}")
+    private long maxLossMillis;
+
+    // 积压访问量超过该值时提前刷新
+    @Value("${view.flush.max-pending:10000}")
+    private long maxPending;
+
+    // 每条批量语句的最大行数
+    @Value("${view.flush.batch-size:500}")
+    private int batchSize;
+
+    // 待写入的访问量增量（文章ID -> 增量）；累加用 merge、刷新用 remove 整条取出，二者按键原子，条目不会残留
+    private final ConcurrentHashMap<Integer, Long> pendingViews = new ConcurrentHashMap<>();
+    private final LongAdder pendingTotal = new LongAdder();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "article-view-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 最近访问记录（文章ID:访客 -> 占位），仅用于去重
+    private Cache<String, Boolean> recentVisitors;
+    private final AtomicLong dedupHits = new AtomicLong();
+
+    // 刷新统计
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong flushedViews = new AtomicLong();
+    private final AtomicLong flushedStatements = new AtomicLong();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void init() {
+        recentVisitors = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(dedupWindowMinutes))
+                .maximumSize(dedupMaxEntries)
+                .build();
+    }
+
+    @Override
+    public boolean recordView(Integer articleId, String visitorId) {
+        // 先校验文章，未知 ID 不占用去重记录
+        requireArticle(articleId);
+        String key = articleId + ":" + visitorId;
+        if (recentVisitors.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            dedupHits.incrementAndGet();
+            return false;
+        }
+        addPending(articleId);
+        try {
+            String uvKey = UV_KEY_PREFIX + articleId;
+            redisTemplate.opsForHyperLogLog().add(uvKey, visitorId);
+            redisTemplate.expire(uvKey, Duration.ofDays(uvTtlDays));
+        } catch (Exception e) {
+            log.warn("[访问量] 记录独立访客失败: articleId={}, error={}", articleId, e.getMessage());
+        }
+        return true;
+    }
+
     @Override
     public void incrementView(Integer articleId) {
-        ArticleView view = articleViewMapper.findByArticleId(articleId);
-        if (view == null) {
-            articleViewMapper.insert(articleId);
-        } else {
-            articleViewMapper.incrementView(articleId);
+        requireArticle(articleId);
+        addPending(articleId);
+    }
+
+    /**
+     * 接口无需登录，未知文章ID直接拒绝，否则待写入表会随随机ID无限增长
+     */
+    private void requireArticle(Integer articleId) {
+        if (!articleBloomFilter.mightContain(articleId)) {
+            throw new RuntimeException("文章不存在");
+        }
+    }
+
+    private void addPending(Integer articleId) {
+        pendingViews.merge(articleId, 1L, Long::sum);
+        pendingTotal.increment();
+        if (pendingTotal.sum() >= maxPending && earlyFlushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    earlyFlushScheduled.set(false);
+                }
+            });
         }
     }
 
     @Override
     public Integer getViewCount(Integer articleId) {
         ArticleView view = articleViewMapper.findByArticleId(articleId);
-        return view != null ? view.getViewCount() : 0;
+        long persisted = view != null ? view.getViewCount() : 0;
+        return (int) (persisted + pendingViews.getOrDefault(articleId, 0L));
+    }
+
+    @Override
+    public Long getUniqueVisitorCount(Integer articleId) {
+        Long count = redisTemplate.opsForHyperLogLog().size(UV_KEY_PREFIX + articleId);
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public Map<String, Object> getViewStats(Integer articleId) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("articleId", articleId);
+        stats.put("views", getViewCount(articleId));
+        stats.put("uniqueVisitors", getUniqueVisitorCount(articleId));
+        return stats;
     }
 
     @Override
@@ -45,15 +192,103 @@ public class ArticleViewServiceImpl implements ArticleViewService {
     public Map<String, Object> getStatistics() {
         Map<String, Object> stats = new HashMap<>();
         
-        // 总访问量
+        // 总访问量（含尚未写入数据库的部分）
         Long totalViews = articleViewMapper.getTotalViews();
-        stats.put("totalViews", totalViews);
+        stats.put("totalViews", totalViews + pendingTotal.sum());
         
         // 热门文章
         List<ArticleView> topViewed = articleViewMapper.findTopViewed(10);
         stats.put("hotArticles", topViewed);
+
+        stats.put("flush", getFlushStats());
         
         return stats;
     }
-}
 
+    /**
+     * 定时刷新积压的访问量
+     */
+    @Scheduled(fixedDelayString = "${view.flush.max-loss-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(maxLossMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭前写入剩余访问量
+        flush();
+    }
+
+    /**
+     * 取出所有增量并分批写入；写入失败的增量放回内存，等待下一次刷新
+     */
+    void flush() {
+        flushLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            List<ArticleView> batch = new ArrayList<>();
+            for (Integer articleId : pendingViews.keySet()) {
+                Long delta = pendingViews.remove(articleId);
+                if (delta != null && delta > 0) {
+                    ArticleView view = new ArticleView();
+                    view.setArticleId(articleId);
+                    view.setViewCount(delta.intValue());
+                    batch.add(view);
+                }
+            }
+            if (batch.isEmpty()) {
+                lastFlushAt = start;
+                return;
+            }
+
+            long views = 0;
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                List<ArticleView> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+                try {
+                    articleViewMapper.batchIncrement(chunk);
+                    flushedStatements.incrementAndGet();
+                    for (ArticleView view : chunk) {
+                        views += view.getViewCount();
+                    }
+                } catch (Exception e) {
+                    flushFailures.incrementAndGet();
+                    log.error("[访问量] 批量写入失败，增量已放回内存: {}", e.getMessage());
+                    for (ArticleView view : chunk) {
+                        pendingViews.merge(view.getArticleId(), (long) view.getViewCount(), Long::sum);
+                    }
+                }
+            }
+            pendingTotal.add(-views);
+            flushedViews.addAndGet(views);
+            flushCount.incrementAndGet();
+            lastFlushAt = start;
+            lastFlushMillis = System.currentTimeMillis() - start;
+            log.debug("[访问量] 刷新完成: 文章数={}, 访问量={}, 耗时={}ms", batch.size(), views, lastFlushMillis);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<String, Object> getFlushStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pendingViews", pendingTotal.sum());
+        stats.put("pendingArticles", pendingViews.size());
+        stats.put("flushCount", flushCount.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("flushedViews", flushedViews.get());
+        stats.put("flushedStatements", flushedStatements.get());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        // 距上次刷新的时间，即当前积压数据可能丢失的最长时间
+        stats.put("flushLagMillis", System.currentTimeMillis() - lastFlushAt);
+        stats.put("maxLossMillis", maxLossMillis);
+        stats.put("dedupHits", dedupHits.get());
+        stats.put("dedupEntries", recentVisitors.estimatedSize());
+        return stats;
+    }
+}
@@ -1,105 +1,709 @@
 package com.itheima.bigevent.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.itheima.bigevent.cache.ArticleCacheEntry;
+import com.itheima.bigevent.cache.codec.BinaryCacheCodec;
+import com.itheima.bigevent.cache.codec.CacheCodec;
 import com.itheima.bigevent.pojo.Article;
 import com.itheima.bigevent.service.CacheService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
+/**
+ * 文章缓存服务（两级缓存）
+ * L1：进程内 Caffeine 缓存，直接保存反序列化后的对象，命中时无网络、无反序列化开销
+ * L2：Redis，多节点共享
+ * 文章更新/删除时通过 Redis 发布订阅通知其他节点清除各自的 L1
+ * 防击穿：同一文章在本节点只有一个加载者，可选 Redis 租约保证集群内只有一个节点回源；
+ * 逻辑过期前按概率提前刷新，逻辑过期后（物理过期前）返回旧值并后台刷新
+ * 防穿透：数据库中不存在的文章写入短期空值缓存
+ * 全量失效：键中带有代号（generation），递增代号即可让所有旧键失效，旧键由后台 SCAN 回收
+ * 序列化：详情和热门列表分别按配置选择编解码器（默认紧凑二进制）
+ */
 @Service
 public class CacheServiceImpl implements CacheService {
 
+    private static final Logger log = LoggerFactory.getLogger(CacheServiceImpl.class);
+
     private static final String ARTICLE_CACHE_PREFIX = "article:detail:";
+    private static final String ARTICLE_NULL_PREFIX = "article:null:";
+    private static final String ARTICLE_LEASE_PREFIX = "article:lease:";
+    private static final String GENERATION_KEY = "article:gen";
+    private static final String RECLAIM_LOCK_KEY = "article:reclaim:lock";
+    private static final String NULL_VALUE = "1";
     private static final String HOT_ARTICLES_KEY = "article:hot";
+    private static final String INVALIDATION_CHANNEL = "cache:article:invalidate";
+    private static final String MSG_EVICT = "evict:";
+    private static final String MSG_FLUSH = "flush:";
     private static final long CACHE_TTL_HOURS = 24; // 缓存24小时
     private static final long HOT_CACHE_TTL_MINUTES = 30; // 热门文章缓存30分钟
+    private static final int ENTRY_BASE_WEIGHT = 512; // 每个条目除正文外的估算字节数
+    private static final long LEASE_POLL_MILLIS = 50; // 未拿到租约时轮询 Redis 的间隔
+    private static final long LOCAL_NULL_MAX_SIZE = 100_000; // 本地空值缓存最大条目数
+    private static final int RECLAIM_SCAN_COUNT = 1000; // 回收时每次 SCAN 的数量
+    private static final int RECLAIM_BATCH_SIZE = 500; // 回收时每批删除的键数量
+
+    // 空值缓存命中标记
+    private static final ArticleCacheEntry MISSING = new ArticleCacheEntry();
+
+    // 只有租约持有者才能释放租约
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
 
     @Autowired
     private StringRedisTemplate redisTemplate;
 
-    private final ObjectMapper objectMapper;
+    @Autowired
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private List<CacheCodec> codecs;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 文章详情使用的编解码器：binary | json
+    @Value("${cache.codec.article-detail:" + BinaryCacheCodec.NAME + "}")
+    private String detailCodecName;
+
+    // 热门文章列表使用的编解码器：binary | json
+    @Value("${cache.codec.article-hot:" + BinaryCacheCodec.NAME + "}")
+    private String hotCodecName;
+
+    // L1 总权重上限（约等于字节数），默认 64MB
+    @Value("${cache.article.local.max-weight:67108864}")
+    private long localMaxWeight;
+
+    // L1 过期时间，兜底丢失失效消息时的最大不一致窗口
+    @Value("${cache.article.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    // 空值缓存过期时间
+    @Value("${cache.article.null-ttl-seconds:60}")
+    private long nullTtlSeconds;
+
+    // 逻辑过期后仍可返回旧值的时长，期间后台刷新
+    @Value("${cache.article.stale-grace-minutes:60}")
+    private long staleGraceMinutes;
+
+    // 是否开启过期后返回旧值（关闭时逻辑过期即同步回源）
+    @Value("${cache.article.stale-while-revalidate:true}")
+    private boolean staleWhileRevalidate;
+
+    // 提前刷新系数，越大越早刷新，0 表示关闭
+    @Value("${cache.article.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    // 是否启用 Redis 租约，保证集群内同一文章只有一个节点回源
+    @Value("${cache.article.lease.enabled:true}")
+    private boolean leaseEnabled;
+
+    @Value("${cache.article.lease.ttl-millis:5000}")
+    private long leaseTtlMillis;
+
+    // 未拿到租约时等待其他节点写入缓存的最长时间，超时后自行回源
+    @Value("${cache.article.lease.wait-millis:200}")
+    private long leaseWaitMillis;
 
-    public CacheServiceImpl() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+    private CacheCodec detailCodec;
+
+    private CacheCodec hotCodec;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 当前缓存代号，通过失效通知和定时同步保持与 Redis 一致
+    private volatile long generation;
+
+    private Cache<Integer, ArticleCacheEntry> localCache;
+
+    // 本地空值缓存
+    private Cache<Integer, Boolean> localMissing;
+
+    // 本节点正在进行的加载，保证同一文章只有一个加载者
+    private final Map<Integer, CompletableFuture<Article>> inflightLoads = new ConcurrentHashMap<>();
+
+    // 失效计数，加载期间发生过失效则不回写缓存，避免旧值覆盖更新
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // 后台刷新线程池，队列满时放弃本次刷新（调用方已拿到旧值）
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(256), new RefreshThreadFactory());
+
+    // L2 统计
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder redisEvictions = new LongAdder();
+    private final LongAdder dbLoads = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder nullHits = new LongAdder();
+    private final LongAdder reclaimedKeys = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        detailCodec = findCodec(detailCodecName);
+        hotCodec = findCodec(hotCodecName);
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(localMaxWeight)
+                .weigher((Integer id, ArticleCacheEntry entry) -> weigh(entry.getArticle()))
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        localMissing = Caffeine.newBuilder()
+                .maximumSize(LOCAL_NULL_MAX_SIZE)
+                .expireAfterWrite(Duration.ofSeconds(nullTtlSeconds))
+                .build();
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+        syncGeneration();
+    }
+
+    /**
+     * 定时从 Redis 同步代号，兜底丢失的全量失效通知
+     */
+    @Scheduled(fixedDelayString = "${cache.article.generation-sync-ms:5000}")
+    public void syncGeneration() {
+        try {
+            String value = redisTemplate.opsForValue().get(GENERATION_KEY);
+            if (value != null) {
+                updateGeneration(Long.parseLong(value));
+            }
+        } catch (Exception e) {
+            log.warn("[缓存] 同步缓存代号失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 后台回收旧代号遗留的键（旧键本身也有过期时间，这里只是提前释放内存）
+     * 通过 SCAN 分批遍历，不阻塞 Redis；集群内同一时间只有一个节点执行
+     */
+    @Scheduled(initialDelayString = "${cache.article.reclaim-interval-ms:600000}",
+            fixedDelayString = "${cache.article.reclaim-interval-ms:600000}")
+    public void reclaimStaleGenerations() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(RECLAIM_LOCK_KEY, nodeId, Duration.ofMinutes(5));
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            // 以 Redis 中的代号为准：本节点可能还没同步到最新代号，不能按本地代号判断
+            String value = redisTemplate.opsForValue().get(GENERATION_KEY);
+            if (value == null) {
+                return;
+            }
+            long current = Long.parseLong(value);
+            for (String prefix : List.of(ARTICLE_CACHE_PREFIX, ARTICLE_NULL_PREFIX)) {
+                ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(RECLAIM_SCAN_COUNT).build();
+                List<String> batch = new ArrayList<>(RECLAIM_BATCH_SIZE);
+                try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                    while (cursor.hasNext()) {
+                        String key = cursor.next();
+                        // 键格式：前缀 + 代号 + ":" + 文章ID；只回收比当前代号小的键，不符合格式的旧版键同样回收
+                        if (isStaleKey(key.substring(prefix.length()), current)) {
+                            batch.add(key);
+                        }
+                        if (batch.size() >= RECLAIM_BATCH_SIZE) {
+                            unlink(batch);
+                        }
+                    }
+                }
+                unlink(batch);
+            }
+        } catch (Exception e) {
+            log.warn("[缓存] 回收旧代号缓存失败: {}", e.getMessage());
+        } finally {
+            releaseLease(RECLAIM_LOCK_KEY);
+        }
+    }
+
+    private static boolean isStaleKey(String rest, long current) {
+        int sep = rest.indexOf(':');
+        if (sep < 0) {
+            return true;
+        }
+        try {
+            return Long.parseLong(rest.substring(0, sep)) < current;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
     }
 
     @Override
     public void cacheArticle(Article article) {
         if (article == null || article.getId() == null) return;
+        writeEntry(new ArticleCacheEntry(article, System.currentTimeMillis() + softTtlMillis(), 0));
+    }
+
+    /**
+     * 注意：L1 命中时返回的是共享对象，调用方只读不可修改
+     */
+    @Override
+    public Article getCachedArticle(Integer articleId) {
+        if (articleId == null) return null;
+        ArticleCacheEntry entry = readEntry(articleId);
+        return entry != null && entry != MISSING ? entry.getArticle() : null;
+    }
+
+    @Override
+    public void cacheMissingArticle(Integer articleId) {
+        if (articleId == null) return;
+        localMissing.put(articleId, Boolean.TRUE);
         try {
-            String key = ARTICLE_CACHE_PREFIX + article.getId();
-            String json = objectMapper.writeValueAsString(article);
-            redisTemplate.opsForValue().set(key, json != null ? json : "", CACHE_TTL_HOURS, TimeUnit.HOURS);
-        } catch (JsonProcessingException e) {
+            redisTemplate.opsForValue().set(nullKey(articleId), NULL_VALUE, nullTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
             // 缓存失败不影响主流程
         }
     }
 
     @Override
-    public Article getCachedArticle(Integer articleId) {
+    public Article getArticle(Integer articleId, Function<Integer, Article> loader) {
         if (articleId == null) return null;
-        try {
-            String key = ARTICLE_CACHE_PREFIX + articleId;
-            String json = redisTemplate.opsForValue().get(key);
-            if (json != null) {
-                return objectMapper.readValue(json, Article.class);
+        ArticleCacheEntry entry = readEntry(articleId);
+        if (entry == null) {
+            return load(articleId, loader);
+        }
+        if (entry == MISSING) {
+            nullHits.increment();
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now < entry.getSoftExpireAt()) {
+            // XFetch：加载越慢、越接近过期，提前刷新的概率越大
+            if (earlyRefreshBeta > 0 && shouldRefreshEarly(entry, now)) {
+                earlyRefreshes.increment();
+                refreshAsync(articleId, loader);
             }
-        } catch (JsonProcessingException e) {
-            // 解析失败返回null，从数据库获取
+            return entry.getArticle();
+        }
+
+        if (staleWhileRevalidate) {
+            staleServed.increment();
+            refreshAsync(articleId, loader);
+            return entry.getArticle();
         }
-        return null;
+        return load(articleId, loader);
     }
 
     @Override
     public void evictArticleCache(Integer articleId) {
         if (articleId == null) return;
-        String key = ARTICLE_CACHE_PREFIX + articleId;
-        redisTemplate.delete(key);
+        invalidations.incrementAndGet();
+        localCache.invalidate(articleId);
+        localMissing.invalidate(articleId);
+        redisTemplate.delete(List.of(detailKey(articleId), nullKey(articleId)));
+        redisEvictions.increment();
+        publish(MSG_EVICT + articleId);
     }
 
     @Override
     public void cacheHotArticles(List<Article> articles) {
         if (articles == null || articles.isEmpty()) return;
         try {
-            String json = objectMapper.writeValueAsString(articles);
-            redisTemplate.opsForValue().set(HOT_ARTICLES_KEY, json != null ? json : "", HOT_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-        } catch (JsonProcessingException e) {
+            byteRedisTemplate.opsForValue().set(HOT_ARTICLES_KEY, hotCodec.encodeList(articles),
+                    HOT_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+        } catch (RuntimeException e) {
             // 缓存失败不影响主流程
+            log.warn("[缓存] 写入热门文章失败: {}", e.getMessage());
         }
     }
 
     @Override
     public List<Article> getCachedHotArticles() {
-        try {
-            String json = redisTemplate.opsForValue().get(HOT_ARTICLES_KEY);
-            if (json != null) {
-                return objectMapper.readValue(json, new TypeReference<List<Article>>() {});
+        byte[] data = byteRedisTemplate.opsForValue().get(HOT_ARTICLES_KEY);
+        if (data != null) {
+            List<Article> articles = hotCodec.decodeList(data);
+            if (articles != null) {
+                return articles;
             }
-        } catch (JsonProcessingException e) {
-            // 解析失败返回空列表
         }
+        // 解析失败返回空列表
         return Collections.emptyList();
     }
 
     @Override
     public void evictAllArticleCache() {
-        // 删除所有文章详情缓存
-        Set<String> keys = redisTemplate.keys(ARTICLE_CACHE_PREFIX + "*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
-        // 删除热门文章缓存
+        invalidations.incrementAndGet();
+        // 先删除热门文章缓存，避免内存镜像清空后又从 Redis 读回旧榜单
         redisTemplate.delete(HOT_ARTICLES_KEY);
+        // 递增代号，所有旧代号的详情缓存和空值缓存立即失效（O(1)）
+        Long next = redisTemplate.opsForValue().increment(GENERATION_KEY);
+        if (next != null) {
+            updateGeneration(next);
+        }
+        localCache.invalidateAll();
+        localMissing.invalidateAll();
+        publish(MSG_FLUSH + generation);
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = localCache.stats();
+        Map<String, Object> local = new LinkedHashMap<>();
+        local.put("hits", stats.hitCount());
+        local.put("misses", stats.missCount());
+        local.put("evictions", stats.evictionCount());
+        local.put("size", localCache.estimatedSize());
+
+        Map<String, Object> redis = new LinkedHashMap<>();
+        redis.put("hits", redisHits.sum());
+        redis.put("misses", redisMisses.sum());
+        redis.put("errors", redisErrors.sum());
+        redis.put("evictions", redisEvictions.sum());
+
+        Map<String, Object> loads = new LinkedHashMap<>();
+        loads.put("dbLoads", dbLoads.sum());
+        loads.put("staleServed", staleServed.sum());
+        loads.put("earlyRefreshes", earlyRefreshes.sum());
+        loads.put("nullHits", nullHits.sum());
+        loads.put("nullCached", localMissing.estimatedSize());
+        loads.put("generation", generation);
+        loads.put("reclaimedKeys", reclaimedKeys.sum());
+        loads.put("inflight", inflightLoads.size());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("l1", local);
+        result.put("l2", redis);
+        result.put("loader", loads);
+        return result;
+    }
+
+    /**
+     * 同步加载：本节点内合并并发请求，只有第一个请求真正回源
+     */
+    private Article load(Integer articleId, Function<Integer, Article> loader) {
+        CompletableFuture<Article> future = new CompletableFuture<>();
+        CompletableFuture<Article> existing = inflightLoads.putIfAbsent(articleId, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            future.complete(loadWithLease(articleId, loader, true));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            inflightLoads.remove(articleId, future);
+        }
+        return join(future);
     }
-}
 
+    /**
+     * 后台刷新：已有加载在进行或线程池已满时直接跳过
+     */
+    private void refreshAsync(Integer articleId, Function<Integer, Article> loader) {
+        CompletableFuture<Article> future = new CompletableFuture<>();
+        if (inflightLoads.putIfAbsent(articleId, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    future.complete(loadWithLease(articleId, loader, false));
+                } catch (RuntimeException e) {
+                    log.warn("[缓存] 后台刷新文章失败: id={}, 错误: {}", articleId, e.getMessage());
+                    future.completeExceptionally(e);
+                } finally {
+                    inflightLoads.remove(articleId, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，本次不刷新，调用方继续使用旧值
+            inflightLoads.remove(articleId, future);
+            future.complete(null);
+        }
+    }
+
+    /**
+     * 在 Redis 租约保护下回源
+     *
+     * @param waitForOthers 未拿到租约时是否等待持有者写入缓存（后台刷新不等待）
+     */
+    private Article loadWithLease(Integer articleId, Function<Integer, Article> loader, boolean waitForOthers) {
+        if (!leaseEnabled) {
+            return loadFromSource(articleId, loader);
+        }
+        String leaseKey = ARTICLE_LEASE_PREFIX + articleId;
+        Boolean acquired = null;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey, nodeId, Duration.ofMillis(leaseTtlMillis));
+        } catch (Exception e) {
+            log.warn("[缓存] 获取加载租约失败，直接回源: {}", e.getMessage());
+        }
+        if (acquired == null) {
+            return loadFromSource(articleId, loader);
+        }
+        if (acquired) {
+            try {
+                return loadFromSource(articleId, loader);
+            } finally {
+                releaseLease(leaseKey);
+            }
+        }
+        if (!waitForOthers) {
+            return null;
+        }
+
+        // 其他节点正在回源，短暂等待其写入缓存
+        long deadline = System.currentTimeMillis() + leaseWaitMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            ArticleCacheEntry entry = readRemoteEntry(articleId);
+            if (entry == MISSING) {
+                localMissing.put(articleId, Boolean.TRUE);
+                return null;
+            }
+            if (entry != null && System.currentTimeMillis() < entry.getSoftExpireAt()) {
+                localCache.put(articleId, entry);
+                return entry.getArticle();
+            }
+        }
+        return loadFromSource(articleId, loader);
+    }
+
+    private Article loadFromSource(Integer articleId, Function<Integer, Article> loader) {
+        long stamp = invalidations.get();
+        long start = System.currentTimeMillis();
+        Article article = loader.apply(articleId);
+        dbLoads.increment();
+        if (stamp != invalidations.get()) {
+            return article;
+        }
+        if (article != null) {
+            long now = System.currentTimeMillis();
+            writeEntry(new ArticleCacheEntry(article, now + softTtlMillis(), now - start));
+        } else {
+            cacheMissingArticle(articleId);
+        }
+        return article;
+    }
+
+    private void releaseLease(String leaseKey) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey), nodeId);
+        } catch (Exception e) {
+            // 租约会自动过期
+        }
+    }
+
+    /**
+     * 依次查询本地空值缓存、L1、L2
+     *
+     * @return 缓存条目；空值缓存命中时返回 MISSING；未命中返回 null
+     */
+    private ArticleCacheEntry readEntry(Integer articleId) {
+        if (localMissing.getIfPresent(articleId) != null) {
+            return MISSING;
+        }
+        ArticleCacheEntry local = localCache.getIfPresent(articleId);
+        if (local != null) {
+            return local;
+        }
+        ArticleCacheEntry entry = readRemoteEntry(articleId);
+        if (entry == MISSING) {
+            localMissing.put(articleId, Boolean.TRUE);
+        } else if (entry != null) {
+            localCache.put(articleId, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 一次 MGET 同时查询详情缓存和空值缓存
+     */
+    private ArticleCacheEntry readRemoteEntry(Integer articleId) {
+        List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(
+                List.of(detailKey(articleId), nullKey(articleId)));
+        byte[] data = values != null ? values.get(0) : null;
+        if (data == null && values != null && values.get(1) != null) {
+            return MISSING;
+        }
+        if (data == null) {
+            redisMisses.increment();
+            return null;
+        }
+        ArticleCacheEntry entry = detailCodec.decode(data);
+        if (entry == null || entry.getArticle() == null) {
+            // 解析失败视为未命中，从数据库获取
+            redisErrors.increment();
+            return null;
+        }
+        redisHits.increment();
+        return entry;
+    }
+
+    private void writeEntry(ArticleCacheEntry entry) {
+        Integer articleId = entry.getArticle().getId();
+        localCache.put(articleId, entry);
+        try {
+            byteRedisTemplate.opsForValue().set(detailKey(articleId), detailCodec.encode(entry),
+                    CACHE_TTL_HOURS, TimeUnit.HOURS);
+        } catch (RuntimeException e) {
+            // 缓存失败不影响主流程
+            log.warn("[缓存] 写入文章缓存失败: id={}, 错误: {}", articleId, e.getMessage());
+        }
+    }
+
+    private boolean shouldRefreshEarly(ArticleCacheEntry entry, long now) {
+        double delta = Math.max(entry.getLoadMillis(), 1);
+        double gap = -delta * earlyRefreshBeta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= entry.getSoftExpireAt();
+    }
+
+    private long softTtlMillis() {
+        return TimeUnit.HOURS.toMillis(CACHE_TTL_HOURS) - TimeUnit.MINUTES.toMillis(staleGraceMinutes);
+    }
+
+    private static Article join(CompletableFuture<Article> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 处理其他节点（以及本节点）发出的失效通知，只清理本地 L1
+     */
+    private void onInvalidation(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        invalidations.incrementAndGet();
+        if (body.startsWith(MSG_FLUSH)) {
+            try {
+                updateGeneration(Long.parseLong(body.substring(MSG_FLUSH.length())));
+            } catch (NumberFormatException e) {
+                log.warn("[缓存] 无法识别的失效消息: {}", body);
+            }
+            localCache.invalidateAll();
+            localMissing.invalidateAll();
+        } else if (body.startsWith(MSG_EVICT)) {
+            try {
+                Integer articleId = Integer.valueOf(body.substring(MSG_EVICT.length()));
+                localCache.invalidate(articleId);
+                localMissing.invalidate(articleId);
+            } catch (NumberFormatException e) {
+                log.warn("[缓存] 无法识别的失效消息: {}", body);
+            }
+        }
+    }
+
+    private CacheCodec findCodec(String name) {
+        return codecs.stream()
+                .filter(codec -> codec.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未知的缓存编解码器: " + name));
+    }
+
+    private void updateGeneration(long value) {
+        if (value <= generation) {
+            return;
+        }
+        synchronized (this) {
+            if (value <= generation) {
+                return;
+            }
+            generation = value;
+            localCache.invalidateAll();
+            localMissing.invalidateAll();
+        }
+        // 通知本节点其他持有文章数据的组件（如热门文章内存镜像）
+        eventPublisher.publishEvent(new ArticleCacheFlushedEvent(value));
+    }
+
+    private String detailKey(Integer articleId) {
+        return ARTICLE_CACHE_PREFIX + generation + ":" + articleId;
+    }
+
+    private String nullKey(Integer articleId) {
+        return ARTICLE_NULL_PREFIX + generation + ":" + articleId;
+    }
+
+    private void unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Long removed = redisTemplate.unlink(keys);
+        reclaimedKeys.add(removed != null ? removed : 0);
+        keys.clear();
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖 L1 过期时间兜底
+            log.warn("[缓存] 发送失效通知失败: {}", e.getMessage());
+        }
+    }
+
+    private static int weigh(Article article) {
+        String content = article != null ? article.getContent() : null;
+        int contentBytes = content != null ? content.length() * 2 : 0;
+        return ENTRY_BASE_WEIGHT + contentBytes;
+    }
+
+    private static class RefreshThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "article-cache-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
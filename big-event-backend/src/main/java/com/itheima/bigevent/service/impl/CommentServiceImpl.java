@@ -1,21 +1,52 @@
 package com.itheima.bigevent.service.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.itheima.bigevent.mapper.CommentMapper;
 import com.itheima.bigevent.pojo.Comment;
+import com.itheima.bigevent.pojo.CursorPage;
 import com.itheima.bigevent.service.CommentService;
 import com.itheima.bigevent.utils.XssUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 评论服务
+ * 评论树由一次查询在内存中组装，并按文章缓存在 Redis；新增、删除评论时清除缓存。
+ * 点赞数允许在缓存有效期内略有滞后
+ */
 @Service
 public class CommentServiceImpl implements CommentService {
 
+  private static final Logger log = LoggerFactory.getLogger(CommentServiceImpl.class);
+
+  private static final String COMMENT_TREE_PREFIX = "comment:tree:";
+
+  private static final int MAX_PAGE_SIZE = 100;
+
   @Autowired
   private CommentMapper commentMapper;
 
+  @Autowired
+  private StringRedisTemplate redisTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Value("${comment.cache.ttl-minutes:10}")
+  private long cacheTtlMinutes;
+
   @Override
   public void add(Comment comment) {
     // XSS 防护：清理用户输入
@@ -37,20 +68,54 @@ public class CommentServiceImpl implements CommentService {
       }
     }
     commentMapper.add(comment);
+    evictCommentTree(comment.getArticleId());
   }
 
   @Override
   public List<Comment> getArticleComments(Integer articleId) {
-    // 获取一级评论
-    List<Comment> rootComments = commentMapper.findRootComments(articleId);
+    String key = COMMENT_TREE_PREFIX + articleId;
+    try {
+      String cached = redisTemplate.opsForValue().get(key);
+      if (cached != null) {
+        return objectMapper.readValue(cached, new TypeReference<List<Comment>>() {
+        });
+      }
+    } catch (Exception e) {
+      log.warn("[评论] 读取评论树缓存失败: articleId={}, error={}", articleId, e.getMessage());
+    }
+
+    List<Comment> tree = buildTree(commentMapper.findByArticleId(articleId));
+    try {
+      redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(tree), cacheTtlMinutes, TimeUnit.MINUTES);
+    } catch (Exception e) {
+      log.warn("[评论] 写入评论树缓存失败: articleId={}, error={}", articleId, e.getMessage());
+    }
+    return tree;
+  }
 
-    // 为每个一级评论加载子评论
-    for (Comment root : rootComments) {
-      List<Comment> children = commentMapper.findChildComments(root.getId());
-      root.setChildren(children != null ? children : new ArrayList<>());
+  @Override
+  public CursorPage<Comment> getArticleComments(Integer articleId, Integer cursor, Integer size) {
+    int pageSize = (size == null || size < 1) ? 20 : Math.min(size, MAX_PAGE_SIZE);
+    // 多取一条用于判断是否还有下一页
+    List<Comment> roots = commentMapper.findRootCommentsByCursor(articleId, cursor, pageSize + 1);
+    boolean hasMore = roots.size() > pageSize;
+    if (hasMore) {
+      roots = new ArrayList<>(roots.subList(0, pageSize));
+    }
+    if (roots.isEmpty()) {
+      return new CursorPage<>(Collections.emptyList(), null);
     }
 
-    return rootComments;
+    Map<Integer, Comment> rootMap = new HashMap<>();
+    for (Comment root : roots) {
+      root.setChildren(new ArrayList<>());
+      rootMap.put(root.getId(), root);
+    }
+    for (Comment child : commentMapper.findChildCommentsByParentIds(new ArrayList<>(rootMap.keySet()))) {
+      rootMap.get(child.getParentId()).getChildren().add(child);
+    }
+    Integer nextCursor = hasMore ? roots.get(roots.size() - 1).getId() : null;
+    return new CursorPage<>(roots, nextCursor);
   }
 
   @Override
@@ -63,14 +128,9 @@ public class CommentServiceImpl implements CommentService {
     // 获取评论信息
     Comment comment = commentMapper.findById(id);
     if (comment != null) {
-      // 如果是一级评论，同时删除其子评论
-      if (comment.getParentId() == null) {
-        List<Comment> children = commentMapper.findChildComments(id);
-        for (Comment child : children) {
-          commentMapper.delete(child.getId());
-        }
-      }
-      commentMapper.delete(id);
+      // 一条语句同时删除评论及其子评论（子评论没有下级，等同于只删除自身）
+      commentMapper.deleteWithChildren(id);
+      evictCommentTree(comment.getArticleId());
     }
   }
 
@@ -78,4 +138,41 @@ public class CommentServiceImpl implements CommentService {
   public Integer getCommentCount(Integer articleId) {
     return commentMapper.countByArticleId(articleId);
   }
+
+  /**
+   * 把按创建时间倒序的评论列表组装成两级树：一级评论倒序，子评论正序
+   */
+  static List<Comment> buildTree(List<Comment> comments) {
+    List<Comment> roots = new ArrayList<>();
+    Map<Integer, Comment> rootMap = new HashMap<>();
+    for (Comment comment : comments) {
+      if (comment.getParentId() == null) {
+        comment.setChildren(new ArrayList<>());
+        roots.add(comment);
+        rootMap.put(comment.getId(), comment);
+      }
+    }
+    // 倒序遍历，子评论按创建时间正序加入
+    for (int i = comments.size() - 1; i >= 0; i--) {
+      Comment comment = comments.get(i);
+      if (comment.getParentId() != null) {
+        Comment root = rootMap.get(comment.getParentId());
+        if (root != null) {
+          root.getChildren().add(comment);
+        }
+      }
+    }
+    return roots;
+  }
+
+  private void evictCommentTree(Integer articleId) {
+    if (articleId == null) {
+      return;
+    }
+    try {
+      redisTemplate.delete(COMMENT_TREE_PREFIX + articleId);
+    } catch (Exception e) {
+      log.warn("[评论] 清除评论树缓存失败: articleId={}, error={}", articleId, e.getMessage());
+    }
+  }
 }
@@ -0,0 +1,169 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.mapper.ArticleMapper;
+import com.itheima.bigevent.pojo.Article;
+import com.itheima.bigevent.service.CacheService;
+import com.itheima.bigevent.service.HotArticleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class HotArticleServiceImpl implements HotArticleService {
+
+    private static final Logger log = LoggerFactory.getLogger(HotArticleServiceImpl.class);
+
+    private static final String HOT_REFRESH_LOCK_KEY = "article:hot:lock";
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // 榜单长度
+    @Value("${hot.size:50}")
+    private int hotSize;
+
+    // 候选文章数量（最近发布 + 访问量最高各取这么多）
+    @Value("${hot.candidates:500}")
+    private int candidateSize;
+
+    // 点赞相对访问的权重
+    @Value("${hot.like-weight:5}")
+    private double likeWeight;
+
+    // 时间衰减指数，越大新文章越占优
+    @Value("${hot.gravity:1.5}")
+    private double gravity;
+
+    @Value("${hot.refresh-interval-ms:300000}")
+    private long refreshIntervalMs;
+
+    // 镜像为空时向 Redis 同步的最小间隔，避免每个请求都访问 Redis
+    @Value("${hot.empty-sync-interval-ms:5000}")
+    private long emptySyncIntervalMs;
+
+    // 内存镜像，读取时不访问数据库
+    private volatile List<Article> hotArticles = Collections.emptyList();
+
+    // 镜像为空时下一次允许从 Redis 同步的时间
+    private final AtomicLong nextEmptySyncAt = new AtomicLong();
+
+    @Override
+    public List<Article> getHotFeed(Integer limit) {
+        List<Article> current = hotArticles;
+        if (current.isEmpty()) {
+            // 本节点尚未刷新过，从 Redis 读取其他节点计算的结果；每个间隔内只有一个请求去读，
+            // Redis 中也为空时其余请求直接返回空榜单，等待下一个间隔或 refresh()
+            long now = System.currentTimeMillis();
+            long next = nextEmptySyncAt.get();
+            if (now < next || !nextEmptySyncAt.compareAndSet(next, now + emptySyncIntervalMs)) {
+                return Collections.emptyList();
+            }
+            current = cacheService.getCachedHotArticles();
+            if (!current.isEmpty()) {
+                hotArticles = current;
+            }
+        }
+        int size = (limit == null || limit < 1) ? 10 : Math.min(limit, hotSize);
+        return current.subList(0, Math.min(size, current.size()));
+    }
+
+    /**
+     * 定时刷新；集群内只有拿到锁的节点计算，其余节点从 Redis 同步
+     */
+    @Override
+    @Scheduled(initialDelayString = "${hot.initial-delay-ms:10000}", fixedDelayString = "${hot.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(HOT_REFRESH_LOCK_KEY, "1",
+                    Duration.ofMillis(Math.max(refreshIntervalMs / 2, 1000)));
+            if (!Boolean.TRUE.equals(locked)) {
+                List<Article> cached = cacheService.getCachedHotArticles();
+                if (!cached.isEmpty()) {
+                    hotArticles = cached;
+                }
+                return;
+            }
+            List<Article> candidates = loadCandidates();
+            if (candidates.isEmpty()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Article article : candidates) {
+                scores.put(article.getId(), score(article, now));
+            }
+            List<Article> ranked = rank(candidates, scores);
+            cacheService.cacheHotArticles(ranked);
+            hotArticles = Collections.unmodifiableList(ranked);
+            log.debug("[热门文章] 榜单已刷新: 数量={}", ranked.size());
+        } catch (Exception e) {
+            log.error("[热门文章] 刷新失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<Article> loadCandidates() {
+        Map<Integer, Article> candidates = new LinkedHashMap<>();
+        for (Article article : articleMapper.findRecentSummaries(candidateSize)) {
+            candidates.put(article.getId(), article);
+        }
+        for (Article article : articleMapper.findTopViewedSummaries(candidateSize)) {
+            candidates.putIfAbsent(article.getId(), article);
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * 按得分倒序截取榜单，并去掉正文
+     */
+    private List<Article> rank(List<Article> candidates, Map<Integer, Double> scores) {
+        candidates.sort(Comparator.comparingDouble((Article a) -> scores.get(a.getId())).reversed());
+        List<Article> ranked = new ArrayList<>(candidates.subList(0, Math.min(hotSize, candidates.size())));
+        for (Article article : ranked) {
+            article.setContent(null);
+        }
+        return ranked;
+    }
+
+    /**
+     * 得分 = (访问量 + 点赞数 × 权重 + 1) / (发布小时数 + 2) ^ gravity
+     */
+    private double score(Article article, LocalDateTime now) {
+        double views = article.getViewCount() != null ? article.getViewCount() : 0;
+        double likes = article.getLikeCount() != null ? article.getLikeCount() : 0;
+        double ageHours = article.getCreateTime() != null
+                ? Math.max(Duration.between(article.getCreateTime(), now).toMinutes() / 60.0, 0)
+                : 0;
+        return (views + likes * likeWeight + 1) / Math.pow(ageHours + 2, gravity);
+    }
+
+    /**
+     * 文章缓存被整体清除后丢弃内存镜像，下次读取时从 Redis 同步或等待重新计算
+     */
+    @EventListener
+    public void onArticleCacheFlushed(CacheService.ArticleCacheFlushedEvent event) {
+        hotArticles = Collections.emptyList();
+        nextEmptySyncAt.set(0);
+    }
+}
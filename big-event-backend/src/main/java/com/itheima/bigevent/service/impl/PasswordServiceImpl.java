@@ -0,0 +1,152 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.exception.PasswordServiceBusyException;
+import com.itheima.bigevent.service.PasswordService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Service
+public class PasswordServiceImpl implements PasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordServiceImpl.class);
+
+    // 默认使用一半的CPU核数，给文章等普通接口留出余量
+    @Value("${auth.password.workers:0}")
+    private int workers;
+
+    @Value("${auth.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    // 请求线程等待结果的最长时间，超时按繁忙处理
+    @Value("${auth.password.timeout-ms:3000}")
+    private long timeoutMs;
+
+    // BCrypt 计算强度（4-31），修改后旧哈希会在用户下次登录时重新计算
+    @Value("${auth.password.bcrypt-strength:10}")
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+
+    private ThreadPoolExecutor executor;
+
+    // 统计
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+        int poolSize = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("[密码] 哈希线程数: {}，队列长度: {}，BCrypt强度: {}", poolSize, queueCapacity, strength);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        return encodedPassword != null && encoder.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long count = completed.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("poolSize", executor.getPoolSize());
+        stats.put("activeCount", executor.getActiveCount());
+        stats.put("queueSize", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", count);
+        stats.put("rejected", rejected.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("avgQueueWaitMs", count == 0 ? 0 : queueWaitNanos.sum() / count / 1_000_000.0);
+        stats.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        stats.put("avgHashMs", count == 0 ? 0 : hashNanos.sum() / count / 1_000_000.0);
+        stats.put("strength", strength);
+        return stats;
+    }
+
+    private <T> T run(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - submittedAt;
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    return task.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordServiceBusyException("密码哈希队列已满");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new PasswordServiceBusyException("等待密码哈希超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("密码校验被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("密码校验失败", cause);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.mapper.FileObjectMapper;
+import com.itheima.bigevent.pojo.FileObject;
+import com.itheima.bigevent.service.StorageService;
+import com.itheima.bigevent.service.ThumbnailService;
+import com.itheima.bigevent.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对象存储服务实现
+ * 具体存储由 StorageBackend 决定（storage.type=oss 或 local），这里负责统计上传次数、字节数和耗时。
+ * 按内容去重时 file_object 表记录哈希与地址的对应关系和引用次数；
+ * 相册移除图片时引用次数减一，归零且没有其他记录使用该地址时删除文件。
+ * 对象名为 SHA-256 加随机后缀，每行唯一：释放时先删记录再删对象，
+ * 期间同内容的新上传写入的是另一个对象，不会被这次删除波及
+ */
+@Service
+public class StorageServiceImpl implements StorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageServiceImpl.class);
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileObjectMapper fileObjectMapper;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    // 上传统计
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private final AtomicLong dedupHits = new AtomicLong();
+    private final AtomicLong dedupBytes = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+
+    @Override
+    public String upload(String objectName, InputStream inputStream, long contentLength, String contentType) {
+        long start = System.currentTimeMillis();
+        try {
+            storageBackend.put(objectName, inputStream, contentLength, contentType);
+            long elapsed = System.currentTimeMillis() - start;
+            uploads.incrementAndGet();
+            if (contentLength > 0) {
+                uploadedBytes.addAndGet(contentLength);
+            }
+            totalMillis.addAndGet(elapsed);
+            maxMillis.accumulateAndGet(elapsed, Math::max);
+            log.debug("[存储] 上传完成: object={}, size={}, 耗时={}ms", objectName, contentLength, elapsed);
+            return storageBackend.url(objectName);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.error("[存储] 上传失败: object={}, error={}", objectName, e.getMessage(), e);
+            throw new RuntimeException("文件上传失败");
+        }
+    }
+
+    @Override
+    public String uploadDeduplicated(InputStreamSource source, String extension, long contentLength, String contentType) {
+        String sha256;
+        try {
+            sha256 = sha256(source);
+        } catch (IOException e) {
+            log.error("[存储] 计算文件哈希失败: {}", e.getMessage(), e);
+            throw new RuntimeException("文件上传失败");
+        }
+
+        FileObject existing = fileObjectMapper.findBySha256(sha256);
+        // 内容已存在时不再传输文件；计数未生效说明该行刚被释放删除，按新文件重新上传
+        if (existing != null && fileObjectMapper.incrementRefCount(existing.getId()) > 0) {
+            dedupHits.incrementAndGet();
+            dedupBytes.addAndGet(Math.max(contentLength, 0));
+            return existing.getUrl();
+        }
+
+        // 扩展名只保留常规字符，避免出现在对象名和路径中
+        String ext = extension != null && extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension.toLowerCase() : "";
+        String objectKey = sha256 + "-" + UUID.randomUUID().toString().substring(0, 8) + ext;
+        String url;
+        try (InputStream inputStream = source.getInputStream()) {
+            url = upload(objectKey, inputStream, contentLength, contentType);
+        } catch (IOException e) {
+            log.error("[存储] 读取上传文件失败: {}", e.getMessage(), e);
+            throw new RuntimeException("文件上传失败");
+        }
+
+        FileObject fileObject = new FileObject();
+        fileObject.setSha256(sha256);
+        fileObject.setObjectKey(objectKey);
+        fileObject.setUrl(url);
+        fileObject.setSize(contentLength);
+        fileObject.setContentType(contentType);
+        fileObjectMapper.insert(fileObject);
+        // 重新读取以取得行 ID；并发上传相同内容时只有一行生效，引用次数已累加到该行，删除本次多余的对象
+        FileObject stored = fileObjectMapper.findBySha256(sha256);
+        if (stored == null) {
+            throw new RuntimeException("文件上传失败");
+        }
+        if (!objectKey.equals(stored.getObjectKey())) {
+            try {
+                storageBackend.delete(objectKey);
+            } catch (Exception e) {
+                log.warn("[存储] 删除重复对象失败: object={}, error={}", objectKey, e.getMessage());
+            }
+            dedupHits.incrementAndGet();
+            return stored.getUrl();
+        }
+        if (contentType != null && contentType.startsWith("image/")) {
+            // 异步生成缩略图；队列已满时由定时任务补做
+            thumbnailService.submit(stored);
+        }
+        return url;
+    }
+
+    /**
+     * 相册等业务事务提交后释放文件；在独立事务中执行，单个文件失败不影响其余文件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onFilesReleased(FilesReleasedEvent event) {
+        release(event.urls());
+    }
+
+    @Override
+    public void release(List<String> urls) {
+        for (String url : new LinkedHashSet<>(urls)) {
+            try {
+                FileObject fileObject = fileObjectMapper.findByUrl(url);
+                if (fileObject == null) {
+                    continue;
+                }
+                fileObjectMapper.decrementRefCount(fileObject.getId());
+                if (fileObjectMapper.deleteUnreferenced(fileObject.getId(), url) == 0) {
+                    continue;
+                }
+                // 先删记录再删对象：删除对象失败只会留下孤立文件，不会出现记录指向已删除的文件
+                storageBackend.delete(fileObject.getObjectKey());
+                thumbnailService.deleteVariants(fileObject);
+                released.incrementAndGet();
+                log.debug("[存储] 文件已释放: object={}", fileObject.getObjectKey());
+            } catch (Exception e) {
+                log.warn("[存储] 释放文件失败: url={}, error={}", url, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 以固定大小的缓冲区流式计算 SHA-256，不把整个文件读入内存
+     */
+    private String sha256(InputStreamSource source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream inputStream = new DigestInputStream(source.getInputStream(), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (inputStream.read(buffer) != -1) {
+                // 读取过程中更新摘要
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long count = uploads.get();
+        long millis = totalMillis.get();
+        stats.put("backend", storageBackend.name());
+        stats.put("uploads", count);
+        stats.put("failures", failures.get());
+        stats.put("uploadedBytes", uploadedBytes.get());
+        stats.put("avgMillis", count > 0 ? millis / count : 0);
+        stats.put("maxMillis", maxMillis.get());
+        // 因内容重复而省去的上传
+        stats.put("dedupHits", dedupHits.get());
+        stats.put("dedupBytes", dedupBytes.get());
+        // 引用归零后删除的文件
+        stats.put("released", released.get());
+        stats.put("thumbnail", thumbnailService.getStats());
+        // 平均吞吐量（字节/秒）
+        stats.put("throughputBytesPerSecond", millis > 0 ? uploadedBytes.get() * 1000 / millis : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,344 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.mapper.AlbumImageMapper;
+import com.itheima.bigevent.mapper.FileObjectMapper;
+import com.itheima.bigevent.pojo.FileObject;
+import com.itheima.bigevent.service.AlbumService;
+import com.itheima.bigevent.service.ThumbnailService;
+import com.itheima.bigevent.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缩略图服务实现
+ * 固定大小的线程池 + 有界队列：队列满时拒绝新任务（不阻塞上传请求），
+ * 未生成缩略图的图片由定时任务按队列空余量补做。
+ * 解码时按目标宽度做降采样，大图不会完整解码到内存
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    @Value("${thumbnail.enabled:true}")
+    private boolean enabled;
+
+    // 小图宽度（列表展示）
+    @Value("${thumbnail.small-width:320}")
+    private int smallWidth;
+
+    // 中图宽度（详情展示）
+    @Value("${thumbnail.medium-width:1024}")
+    private int mediumWidth;
+
+    @Value("${thumbnail.workers:2}")
+    private int workers;
+
+    @Value("${thumbnail.queue-capacity:64}")
+    private int queueCapacity;
+
+    // 失败达到该次数后不再重试，列表继续使用原图
+    @Value("${thumbnail.max-attempts:3}")
+    private int maxAttempts;
+
+    // 超过该像素数的图片不处理，防止解压炸弹
+    @Value("${thumbnail.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${thumbnail.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileObjectMapper fileObjectMapper;
+
+    @Autowired
+    private AlbumImageMapper albumImageMapper;
+
+    @Autowired
+    private AlbumService albumService;
+
+    private ThreadPoolExecutor executor;
+
+    // 处理统计
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+    private final AtomicLong resizeNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "thumbnail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean submit(FileObject fileObject) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            executor.execute(() -> process(fileObject));
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.debug("[缩略图] 队列已满，稍后补做: {}", fileObject.getObjectKey());
+            return false;
+        }
+    }
+
+    /**
+     * 补做未生成缩略图的图片，每次最多提交队列空余数量的任务
+     */
+    @Scheduled(fixedDelayString = "${thumbnail.sweep-interval-ms:60000}")
+    public void sweep() {
+        int free = queueCapacity - executor.getQueue().size();
+        if (!enabled || free <= 0) {
+            return;
+        }
+        try {
+            List<FileObject> pending = fileObjectMapper.findPendingThumbnails(free, maxAttempts);
+            for (FileObject fileObject : pending) {
+                if (!submit(fileObject)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[缩略图] 查询待处理图片失败: {}", e.getMessage());
+        }
+    }
+
+    private void process(FileObject fileObject) {
+        try {
+            long start = System.nanoTime();
+            BufferedImage source = decode(fileObject.getObjectKey(), mediumWidth);
+            long decoded = System.nanoTime();
+            decodeNanos.addAndGet(decoded - start);
+            if (source == null) {
+                // 无法解码或尺寸超限，直接使用原图，避免反复重试
+                skipped.incrementAndGet();
+                complete(fileObject, fileObject.getUrl(), fileObject.getUrl());
+                return;
+            }
+
+            boolean png = fileObject.getObjectKey().endsWith(".png");
+            String mediumUrl = fileObject.getUrl();
+            BufferedImage medium = source;
+            if (source.getWidth() > mediumWidth) {
+                medium = resize(source, mediumWidth, png);
+                mediumUrl = store(fileObject, medium, mediumWidth, png);
+            }
+            String thumbUrl = fileObject.getUrl();
+            if (source.getWidth() > smallWidth) {
+                thumbUrl = store(fileObject, resize(medium, smallWidth, png), smallWidth, png);
+            }
+            resizeNanos.addAndGet(System.nanoTime() - decoded);
+            processed.incrementAndGet();
+            complete(fileObject, thumbUrl, mediumUrl);
+        } catch (Exception e) {
+            // 记录失败次数，由定时任务重试，达到上限后不再处理（损坏的图片不会一直占用补做名额）
+            failures.incrementAndGet();
+            log.warn("[缩略图] 生成失败: object={}, error={}", fileObject.getObjectKey(), e.getMessage());
+            try {
+                fileObjectMapper.incrementThumbAttempts(fileObject.getId());
+            } catch (Exception ex) {
+                log.warn("[缩略图] 记录失败次数失败: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void complete(FileObject fileObject, String thumbUrl, String mediumUrl) {
+        fileObjectMapper.updateThumbnails(fileObject.getId(), thumbUrl, mediumUrl);
+        if (albumImageMapper.updateThumbnails(fileObject.getUrl(), thumbUrl, mediumUrl) > 0) {
+            albumService.evictListCache();
+        }
+    }
+
+    /**
+     * 解码图片；宽度超过目标宽度两倍以上时按整数倍降采样读取。无法识别或像素数超限时返回 null
+     */
+    private BufferedImage decode(String key, int targetWidth) throws IOException {
+        try (InputStream inputStream = storageBackend.open(key);
+             ImageInputStream imageStream = ImageIO.createImageInputStream(inputStream)) {
+            if (imageStream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, width / (targetWidth * 2));
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return reader.read(0, param);
+            } catch (IIOException e) {
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 逐级减半后再缩放到目标宽度，双线性插值在每一步都能保持画质
+     */
+    private BufferedImage resize(BufferedImage image, int targetWidth, boolean png) {
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(width / 2, targetWidth);
+            height = width == targetWidth ? targetHeight : Math.max(height / 2, targetHeight);
+            BufferedImage next = new BufferedImage(width, height, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (!png) {
+                    // JPEG 不支持透明通道，先铺白底
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private String store(FileObject fileObject, BufferedImage image, int width, boolean png) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (png) {
+            ImageIO.write(image, "png", out);
+        } else {
+            writeJpeg(image, out);
+        }
+        String key = variantKey(fileObject, width, png);
+        byte[] bytes = out.toByteArray();
+        storageBackend.put(key, new ByteArrayInputStream(bytes), bytes.length, png ? "image/png" : "image/jpeg");
+        return storageBackend.url(key);
+    }
+
+    // 以原图对象名（不含扩展名）为前缀，与原图一样每行唯一
+    private String variantKey(FileObject fileObject, int width, boolean png) {
+        String objectKey = fileObject.getObjectKey();
+        int dot = objectKey.lastIndexOf('.');
+        return (dot > 0 ? objectKey.substring(0, dot) : objectKey) + "_w" + width + (png ? ".png" : ".jpg");
+    }
+
+    @Override
+    public void deleteVariants(FileObject fileObject) {
+        boolean png = fileObject.getObjectKey().endsWith(".png");
+        // 未超过目标宽度时缩略图直接使用原图地址，没有单独的对象
+        if (fileObject.getMediumUrl() != null && !fileObject.getMediumUrl().equals(fileObject.getUrl())) {
+            deleteQuietly(variantKey(fileObject, mediumWidth, png));
+        }
+        if (fileObject.getThumbUrl() != null && !fileObject.getThumbUrl().equals(fileObject.getUrl())) {
+            deleteQuietly(variantKey(fileObject, smallWidth, png));
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storageBackend.delete(key);
+        } catch (Exception e) {
+            log.warn("[缩略图] 删除缩略图失败: object={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, ByteArrayOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageStream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long done = processed.get();
+        long decode = decodeNanos.get();
+        long resize = resizeNanos.get();
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("processed", done);
+        stats.put("skipped", skipped.get());
+        stats.put("failures", failures.get());
+        stats.put("queueSize", executor.getQueue().size());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("avgDecodeMillis", done > 0 ? decode / done / 1_000_000 : 0);
+        stats.put("avgResizeMillis", done > 0 ? resize / done / 1_000_000 : 0);
+        // 单个工作线程每秒可处理的图片数
+        stats.put("imagesPerSecondPerWorker", decode + resize > 0 ? done * 1_000_000_000L / (decode + resize) : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,282 @@
+package com.itheima.bigevent.service.impl;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.itheima.bigevent.pojo.TokenClaims;
+import com.itheima.bigevent.pojo.UserSession;
+import com.itheima.bigevent.service.TokenService;
+import com.itheima.bigevent.utils.HttpUtil;
+import com.itheima.bigevent.utils.JwtUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录令牌服务实现
+ * 会话以令牌摘要为键存放在 Redis 哈希 auth:session:{digest} 中（uid、ip、签发时间、过期时间），
+ * 每个用户另有一个有序集合 auth:user:sessions:{uid} 作为会话索引（成员为摘要，分值为签发时间），
+ * 用于列出会话、退出所有设备和限制单用户会话数。
+ * 会话和索引分属不同的槽，每条命令和脚本只访问一个键（兼容 Redis Cluster），跨键的维护在 Java 中分步完成，
+ * 每一步都可重复执行。
+ * 校验通过的令牌按摘要缓存在本地，稳定状态下校验不访问 Redis、不计算 HMAC；
+ * 本地缓存最长保留 auth.token.cache.max-ttl-seconds，即使吊销消息丢失，也会在该时间内重新访问 Redis 校验
+ */
+@Service
+public class TokenServiceImpl implements TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenServiceImpl.class);
+
+    private static final String REVOKE_CHANNEL = "auth:token:revoke";
+    private static final String SESSION_PREFIX = "auth:session:";
+    private static final String USER_INDEX_PREFIX = "auth:user:sessions:";
+
+    // 把会话加入用户索引，超出上限时移除最早的成员并返回（会话本身由调用方删除）；只访问索引一个键
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final DefaultRedisScript<List> INDEX_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+                    "local evicted = {} " +
+                    "local over = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[3]) " +
+                    "if over > 0 then " +
+                    "  evicted = redis.call('ZRANGE', KEYS[1], 0, over - 1) " +
+                    "  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, over - 1) " +
+                    "end " +
+                    "if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[4]) then redis.call('PEXPIRE', KEYS[1], ARGV[4]) end " +
+                    "return evicted", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${auth.token.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${auth.token.cache.max-ttl-seconds:300}")
+    private long cacheMaxTtlSeconds;
+
+    @Value("${auth.session.max-per-user:10}")
+    private int maxSessionsPerUser;
+
+    // 令牌摘要 -> 校验结果
+    private Cache<String, TokenClaims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenClaims value, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(value.expiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExpiry, TimeUnit.SECONDS.toNanos(cacheMaxTtlSeconds)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenClaims value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenClaims value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        listenerContainer.addMessageListener(this::onRevoke, new ChannelTopic(REVOKE_CHANNEL));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void store(String token, Integer userId, Duration ttl) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        String ip = HttpUtil.getClientIp();
+        String indexKey = USER_INDEX_PREFIX + userId;
+
+        // 先写会话再加入索引：中途失败时最多留下一个未被索引、到期自动删除的会话
+        String sessionKey = SESSION_PREFIX + digest;
+        stringRedisTemplate.opsForHash().putAll(sessionKey, Map.of(
+                "uid", String.valueOf(userId),
+                "ip", ip == null ? "" : ip,
+                "iat", String.valueOf(now),
+                "exp", String.valueOf(now + ttl.toMillis())));
+        stringRedisTemplate.expire(sessionKey, ttl);
+
+        pruneExpired(indexKey);
+        List<String> evicted = stringRedisTemplate.execute(INDEX_SCRIPT, Collections.singletonList(indexKey),
+                digest, String.valueOf(now), String.valueOf(maxSessionsPerUser), String.valueOf(ttl.toMillis()));
+        if (evicted != null && !evicted.isEmpty()) {
+            stringRedisTemplate.delete(sessionKeys(evicted));
+            log.info("[令牌] 用户 {} 会话数超过上限 {}，踢掉最早的 {} 个会话", userId, maxSessionsPerUser, evicted.size());
+            publishRevoke(evicted);
+        }
+    }
+
+    /**
+     * 从索引中移除已过期的会话，避免过期会话占用会话数上限
+     */
+    private void pruneExpired(String indexKey) {
+        Set<String> digests = stringRedisTemplate.opsForZSet().range(indexKey, 0, -1);
+        if (digests == null || digests.isEmpty()) {
+            return;
+        }
+        List<String> expired = new ArrayList<>();
+        for (String digest : digests) {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(SESSION_PREFIX + digest))) {
+                expired.add(digest);
+            }
+        }
+        if (!expired.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(indexKey, expired.toArray());
+        }
+    }
+
+    @Override
+    public TokenClaims verify(String token) {
+        String digest = digest(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(digest);
+            return null;
+        }
+
+        Object uid = stringRedisTemplate.opsForHash().get(SESSION_PREFIX + digest, "uid");
+        if (uid == null) {
+            return null;
+        }
+        TokenClaims claims;
+        try {
+            claims = jwtUtil.verify(token);
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+        // 会话必须属于令牌中的用户
+        if (claims.id() == null || !uid.equals(String.valueOf(claims.id()))) {
+            return null;
+        }
+        verifiedTokens.put(digest, claims);
+        return claims;
+    }
+
+    @Override
+    public void revoke(String token) {
+        String digest = digest(token);
+        String sessionKey = SESSION_PREFIX + digest;
+        Object uid = stringRedisTemplate.opsForHash().get(sessionKey, "uid");
+        stringRedisTemplate.delete(sessionKey);
+        if (uid != null) {
+            stringRedisTemplate.opsForZSet().remove(USER_INDEX_PREFIX + uid, digest);
+        }
+        verifiedTokens.invalidate(digest);
+        publishRevoke(List.of(digest));
+    }
+
+    @Override
+    public int revokeAll(Integer userId) {
+        String indexKey = USER_INDEX_PREFIX + userId;
+        Set<String> members = stringRedisTemplate.opsForZSet().range(indexKey, 0, -1);
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+        List<String> digests = new ArrayList<>(members);
+        stringRedisTemplate.delete(sessionKeys(digests));
+        // 只移除已删除的成员，期间新登录加入索引的会话保留
+        stringRedisTemplate.opsForZSet().remove(indexKey, digests.toArray());
+        verifiedTokens.invalidateAll(digests);
+        publishRevoke(digests);
+        return digests.size();
+    }
+
+    @Override
+    public List<UserSession> listSessions(Integer userId, String currentToken) {
+        Set<String> digests = stringRedisTemplate.opsForZSet().range(USER_INDEX_PREFIX + userId, 0, -1);
+        if (digests == null || digests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String currentDigest = currentToken == null ? null : digest(currentToken);
+        List<UserSession> sessions = new ArrayList<>(digests.size());
+        for (String digest : digests) {
+            Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(SESSION_PREFIX + digest);
+            if (fields.isEmpty()) {
+                continue; // 已过期，索引会在下次登录时清理
+            }
+            UserSession session = new UserSession();
+            session.setId(digest);
+            session.setIp((String) fields.get("ip"));
+            session.setCreateTime(toDateTime(fields.get("iat")));
+            session.setExpireTime(toDateTime(fields.get("exp")));
+            session.setCurrent(digest.equals(currentDigest));
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static List<String> sessionKeys(List<String> digests) {
+        return digests.stream().map(d -> SESSION_PREFIX + d).toList();
+    }
+
+    private void publishRevoke(List<String> digests) {
+        try {
+            stringRedisTemplate.convertAndSend(REVOKE_CHANNEL, String.join(",", digests));
+        } catch (Exception e) {
+            log.warn("[令牌] 发布吊销消息失败: {}", e.getMessage());
+        }
+    }
+
+    private void onRevoke(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        verifiedTokens.invalidateAll(Arrays.asList(body.split(",")));
+    }
+
+    private static LocalDateTime toDateTime(Object epochMillis) {
+        if (epochMillis == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong((String) epochMillis)), ZoneId.systemDefault());
+    }
+
+    /**
+     * 令牌摘要：SHA-256 前 16 字节的 Base64URL 编码（22 个字符）
+     */
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.pojo.UploadSession;
+import com.itheima.bigevent.service.StorageService;
+import com.itheima.bigevent.service.UploadSessionService;
+import com.itheima.bigevent.utils.ThreadLocalUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 分片上传服务实现
+ * 会话信息存放在 Redis（哈希 + 已接收分片位图），分片先写入单独的暂存文件并校验 SHA-256，
+ * 校验通过后才按偏移量复制到预分配的临时文件，重传错误数据不会覆盖已接收的分片；
+ * 写入时同步计算 SHA-256 校验；全部接收后临时文件即为完整文件，无需再拼接。
+ * 临时文件在本机磁盘上，多节点部署时同一会话的请求需要路由到同一节点。
+ * 每个用户同时进行中的会话数有上限，避免反复创建会话占满临时目录
+ */
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionServiceImpl.class);
+
+    private static final String SESSION_PREFIX = "upload:session:";
+    private static final String CHUNKS_SUFFIX = ":chunks";
+    private static final String USER_SESSIONS_PREFIX = "upload:user:sessions:";
+    private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    @Autowired
+    private StorageService storageService;
+
+    // 临时文件目录
+    @Value("${upload.session.dir:${java.io.tmpdir}/big-event-uploads}")
+    private String sessionDir;
+
+    @Value("${upload.session.default-chunk-size:5242880}")
+    private int defaultChunkSize;
+
+    @Value("${upload.session.max-file-size:1073741824}")
+    private long maxFileSize;
+
+    // 每个用户同时进行中的会话数
+    @Value("${upload.session.max-per-user:5}")
+    private int maxSessionsPerUser;
+
+    // 会话最后一次活动后的保留时间
+    @Value("${upload.session.ttl-hours:24}")
+    private long ttlHours;
+
+    private Path root;
+
+    // 正在写入的分片数（按会话），合并时有写入进行中则拒绝合并
+    private final ConcurrentHashMap<String, AtomicInteger> activeWrites = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(sessionDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public UploadSession init(String fileName, long fileSize, Integer chunkSize, String contentType) {
+        if (fileName == null || !fileName.contains(".")) {
+            throw new RuntimeException("文件名无效");
+        }
+        if (fileSize <= 0 || fileSize > maxFileSize) {
+            throw new RuntimeException("文件大小超出限制");
+        }
+        int size = chunkSize != null ? Math.max(MIN_CHUNK_SIZE, Math.min(chunkSize, MAX_CHUNK_SIZE)) : defaultChunkSize;
+        int totalChunks = (int) ((fileSize + size - 1) / size);
+
+        Integer userId = ThreadLocalUtil.getCurrentUserIdRequired();
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        reserveSlot(userId, uploadId);
+        try (RandomAccessFile file = new RandomAccessFile(partFile(uploadId).toFile(), "rw")) {
+            // 预分配文件长度，分片可以按任意顺序写入
+            file.setLength(fileSize);
+        } catch (IOException e) {
+            log.error("[分片上传] 创建临时文件失败: {}", e.getMessage(), e);
+            redisTemplate.opsForZSet().remove(USER_SESSIONS_PREFIX + userId, uploadId);
+            throw new RuntimeException("创建上传会话失败");
+        }
+
+        Map<String, String> meta = new HashMap<>();
+        meta.put("userId", String.valueOf(userId));
+        meta.put("fileName", fileName);
+        meta.put("fileSize", String.valueOf(fileSize));
+        meta.put("chunkSize", String.valueOf(size));
+        meta.put("totalChunks", String.valueOf(totalChunks));
+        meta.put("contentType", contentType != null ? contentType : "");
+        String key = SESSION_PREFIX + uploadId;
+        redisTemplate.opsForHash().putAll(key, meta);
+        redisTemplate.expire(key, Duration.ofHours(ttlHours));
+
+        return toSession(uploadId, meta);
+    }
+
+    @Override
+    public void writeChunk(String uploadId, int index, InputStream body, String checksum) {
+        // 先登记写入再检查合并标记，与 complete 的顺序相反，两者至少有一方能看到对方
+        AtomicInteger writes = activeWrites.computeIfAbsent(uploadId, id -> new AtomicInteger());
+        writes.incrementAndGet();
+        try {
+            writeChunk(uploadId, index, body, checksum, loadMeta(uploadId));
+        } finally {
+            if (writes.decrementAndGet() == 0) {
+                activeWrites.remove(uploadId, writes);
+            }
+        }
+    }
+
+    private void writeChunk(String uploadId, int index, InputStream body, String checksum, Map<String, String> meta) {
+        if (meta.containsKey("completing")) {
+            throw new RuntimeException("文件正在处理，不能再上传分片");
+        }
+        long fileSize = Long.parseLong(meta.get("fileSize"));
+        int chunkSize = Integer.parseInt(meta.get("chunkSize"));
+        int totalChunks = Integer.parseInt(meta.get("totalChunks"));
+        if (index < 0 || index >= totalChunks) {
+            throw new RuntimeException("分片序号无效");
+        }
+        if (checksum == null || checksum.isBlank()) {
+            throw new RuntimeException("缺少分片校验值");
+        }
+
+        long offset = (long) index * chunkSize;
+        long expected = Math.min(chunkSize, fileSize - offset);
+        Path staging = root.resolve(uploadId + "." + index + "." + UUID.randomUUID().toString().replace("-", "") + ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (written + read > expected) {
+                        throw new RuntimeException("分片大小不正确");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                    written += read;
+                }
+            }
+            if (written != expected) {
+                throw new RuntimeException("分片大小不正确");
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(checksum.trim())) {
+                // 暂存文件直接丢弃，已接收的分片数据和状态都不受影响
+                throw new RuntimeException("分片校验失败，请重传");
+            }
+            try (FileChannel source = FileChannel.open(staging, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(partFile(uploadId), StandardOpenOption.WRITE)) {
+                long copied = 0;
+                while (copied < expected) {
+                    long n = source.transferTo(copied, expected - copied, target.position(offset + copied));
+                    if (n <= 0) {
+                        throw new IOException("复制分片数据中断");
+                    }
+                    copied += n;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("[分片上传] 写入分片失败: uploadId={}, index={}, error={}", uploadId, index, e.getMessage());
+            throw new RuntimeException("分片写入失败，请重试");
+        } finally {
+            try {
+                Files.deleteIfExists(staging);
+            } catch (IOException e) {
+                log.warn("[分片上传] 删除暂存文件失败: {}", e.getMessage());
+            }
+        }
+
+        String chunksKey = SESSION_PREFIX + uploadId + CHUNKS_SUFFIX;
+        redisTemplate.opsForValue().setBit(chunksKey, index, true);
+        redisTemplate.expire(chunksKey, Duration.ofHours(ttlHours));
+        redisTemplate.expire(SESSION_PREFIX + uploadId, Duration.ofHours(ttlHours));
+    }
+
+    @Override
+    public UploadSession getStatus(String uploadId) {
+        Map<String, String> meta = loadMeta(uploadId);
+        UploadSession session = toSession(uploadId, meta);
+        session.setReceivedChunks(receivedChunks(uploadId, session.getTotalChunks()));
+        return session;
+    }
+
+    @Override
+    public String complete(String uploadId) {
+        Map<String, String> meta = loadMeta(uploadId);
+        UploadSession session = toSession(uploadId, meta);
+        String key = SESSION_PREFIX + uploadId;
+        if (receivedChunks(uploadId, session.getTotalChunks()).size() != session.getTotalChunks()) {
+            throw new RuntimeException("还有分片未上传");
+        }
+        // 防止重复提交同时合并
+        if (!Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(key, "completing", "1"))) {
+            throw new RuntimeException("文件正在处理，请勿重复提交");
+        }
+        AtomicInteger writes = activeWrites.get(uploadId);
+        if (writes != null && writes.get() > 0) {
+            // 还有分片在写入（如客户端重传），此时读取的文件内容可能不完整
+            redisTemplate.opsForHash().delete(key, "completing");
+            throw new RuntimeException("分片正在写入，请稍后重试");
+        }
+
+        Path path = partFile(uploadId);
+        String fileName = session.getFileName();
+        String ext = fileName.substring(fileName.lastIndexOf("."));
+        String contentType = session.getContentType().isEmpty() ? null : session.getContentType();
+        String url;
+        try {
+            url = storageService.uploadDeduplicated(new FileSystemResource(path), ext, session.getFileSize(), contentType);
+        } catch (RuntimeException e) {
+            // 保存失败时允许再次提交
+            redisTemplate.opsForHash().delete(key, "completing");
+            throw e;
+        }
+        redisTemplate.delete(List.of(key, key + CHUNKS_SUFFIX));
+        redisTemplate.opsForZSet().remove(USER_SESSIONS_PREFIX + meta.get("userId"), uploadId);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 文件已保存成功，临时文件留给定时清理
+            log.warn("[分片上传] 删除临时文件失败: uploadId={}, error={}", uploadId, e.getMessage());
+        }
+        return url;
+    }
+
+    /**
+     * 清理过期会话留下的临时文件和暂存文件
+     */
+    @Scheduled(fixedDelayString = "${upload.session.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        long expireBefore = System.currentTimeMillis() - Duration.ofHours(ttlHours).toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*.{part,tmp}")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < expireBefore) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("[分片上传] 清理临时文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 占用一个会话名额：先移除已过期的会话，登记后超出上限则撤销并拒绝
+     */
+    private void reserveSlot(Integer userId, String uploadId) {
+        String key = USER_SESSIONS_PREFIX + userId;
+        long now = System.currentTimeMillis();
+        // 刚登记的会话可能还没写入会话信息，一分钟内登记的不清理
+        Set<String> uploadIds = redisTemplate.opsForZSet().rangeByScore(key, 0, now - 60_000);
+        if (uploadIds != null) {
+            for (String id : uploadIds) {
+                if (!Boolean.TRUE.equals(redisTemplate.hasKey(SESSION_PREFIX + id))) {
+                    redisTemplate.opsForZSet().remove(key, id);
+                }
+            }
+        }
+        redisTemplate.opsForZSet().add(key, uploadId, now);
+        redisTemplate.expire(key, Duration.ofHours(ttlHours));
+        Long count = redisTemplate.opsForZSet().zCard(key);
+        if (count != null && count > maxSessionsPerUser) {
+            redisTemplate.opsForZSet().remove(key, uploadId);
+            throw new RuntimeException("进行中的上传过多，请先完成已有上传");
+        }
+    }
+
+    /**
+     * 读取会话信息，并校验会话属于当前用户
+     */
+    private Map<String, String> loadMeta(String uploadId) {
+        if (uploadId == null || !UPLOAD_ID_PATTERN.matcher(uploadId).matches()) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(SESSION_PREFIX + uploadId);
+        if (entries.isEmpty()) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        Map<String, String> meta = new HashMap<>();
+        entries.forEach((k, v) -> meta.put(String.valueOf(k), String.valueOf(v)));
+        if (!String.valueOf(ThreadLocalUtil.getCurrentUserIdRequired()).equals(meta.get("userId"))) {
+            throw new RuntimeException("无权访问该上传会话");
+        }
+        return meta;
+    }
+
+    /**
+     * 解析 Redis 位图（第 0 位是第一个字节的最高位）
+     */
+    private List<Integer> receivedChunks(String uploadId, int totalChunks) {
+        byte[] bitmap = byteRedisTemplate.opsForValue().get(SESSION_PREFIX + uploadId + CHUNKS_SUFFIX);
+        List<Integer> received = new ArrayList<>();
+        if (bitmap == null) {
+            return received;
+        }
+        for (int i = 0; i < totalChunks && i / 8 < bitmap.length; i++) {
+            if ((bitmap[i / 8] & (0x80 >>> (i % 8))) != 0) {
+                received.add(i);
+            }
+        }
+        return received;
+    }
+
+    private UploadSession toSession(String uploadId, Map<String, String> meta) {
+        UploadSession session = new UploadSession();
+        session.setUploadId(uploadId);
+        session.setFileName(meta.get("fileName"));
+        session.setFileSize(Long.parseLong(meta.get("fileSize")));
+        session.setChunkSize(Integer.parseInt(meta.get("chunkSize")));
+        session.setTotalChunks(Integer.parseInt(meta.get("totalChunks")));
+        session.setContentType(meta.get("contentType"));
+        return session;
+    }
+
+    private Path partFile(String uploadId) {
+        return root.resolve(uploadId + ".part");
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,46 +1,168 @@
 package com.itheima.bigevent.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.itheima.bigevent.mapper.UserMapper;
 import com.itheima.bigevent.pojo.User;
+import com.itheima.bigevent.service.PasswordService;
 import com.itheima.bigevent.service.UserService;
 import com.itheima.bigevent.utils.ThreadLocalUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户服务
+ * 按ID缓存用户，另缓存 用户名 -> ID 的映射（用户名不可修改，映射无需失效）：
+ * L1：进程内 Caffeine，保存完整的用户对象（含密码哈希），供登录和修改密码时校验；
+ * L2：Redis JSON（user:cache:{id}），由 @JsonIgnore 排除密码哈希，多节点共享。
+ * 修改资料、头像、密码、角色后删除两级缓存，并通过 cache:user:invalidate 频道通知其他节点
+ */
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    private static final String USER_CACHE_PREFIX = "user:cache:";
+    private static final String USERNAME_CACHE_PREFIX = "user:cache:name:";
+    private static final String INVALIDATION_CHANNEL = "cache:user:invalidate";
+
     @Autowired
     private UserMapper userMapper;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Value("${cache.user.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${cache.user.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Value("${cache.user.redis.ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    // 用户ID -> 用户
+    private Cache<Integer, User> localUsers;
+
+    // 用户名 -> 用户ID
+    private Cache<String, Integer> localUsernames;
+
+    @PostConstruct
+    public void init() {
+        localUsers = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        localUsernames = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .build();
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
 
     @Override
     public User findByUsername(final String username) {
-        return userMapper.findByUsername(username);
+        Integer id = localUsernames.getIfPresent(username);
+        if (id == null) {
+            String cachedId = redisTemplate.opsForValue().get(USERNAME_CACHE_PREFIX + username);
+            if (cachedId != null) {
+                id = Integer.valueOf(cachedId);
+                localUsernames.put(username, id);
+            }
+        }
+        if (id != null) {
+            User user = findById(id);
+            if (user != null && username.equals(user.getUsername())) {
+                return user;
+            }
+        }
+        return load(userMapper.findByUsername(username));
+    }
+
+    @Override
+    public User findForAuthentication(final String username) {
+        Integer id = localUsernames.getIfPresent(username);
+        if (id != null) {
+            User user = localUsers.getIfPresent(id);
+            if (user != null && user.getPassword() != null) {
+                return user;
+            }
+        }
+        // 共享缓存中没有密码哈希，本地未命中时直接查库
+        return load(userMapper.findByUsername(username));
+    }
+
+    @Override
+    public User findById(final Integer id) {
+        User user = localUsers.getIfPresent(id);
+        if (user != null) {
+            return user;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(USER_CACHE_PREFIX + id);
+            if (json != null) {
+                user = objectMapper.readValue(json, User.class);
+                localUsers.put(id, user);
+                return user;
+            }
+        } catch (Exception e) {
+            log.warn("[用户缓存] 读取缓存失败: {}", e.getMessage());
+        }
+        return load(userMapper.findById(id));
     }
 
     @Override
     public void register(final String username, final String password) {
-        final String encodedPassword = passwordEncoder.encode(password);
+        final String encodedPassword = passwordService.encode(password);
         userMapper.add(username, encodedPassword);
     }
 
     @Override
     public void update(final User user) {
         userMapper.update(user);
+        evict(user.getId());
     }
 
     @Override
     public void updateAvatar(final String url) {
-        userMapper.updateAvatar(url, ThreadLocalUtil.getCurrentUserIdRequired());
+        final Integer id = ThreadLocalUtil.getCurrentUserIdRequired();
+        userMapper.updateAvatar(url, id);
+        evict(id);
     }
 
     @Override
     public void updatePwd(final String newPwd) {
-        final String encodedPassword = passwordEncoder.encode(newPwd);
-        userMapper.updatePwd(encodedPassword, ThreadLocalUtil.getCurrentUserIdRequired());
+        final String encodedPassword = passwordService.encode(newPwd);
+        final Integer id = ThreadLocalUtil.getCurrentUserIdRequired();
+        userMapper.updatePwd(encodedPassword, id);
+        evict(id);
+    }
+
+    @Override
+    public void rehashPassword(final Integer id, final String rawPassword) {
+        userMapper.updatePwd(passwordService.encode(rawPassword), id);
+        evict(id);
     }
 
     @Override
@@ -55,10 +177,54 @@ public class UserServiceImpl implements UserService {
     @Override
     public void updateRole(final Integer id, final String role) {
         userMapper.updateRole(id, role);
+        evict(id);
     }
 
     @Override
     public void updateByAdmin(final User user) {
         userMapper.updateByAdmin(user);
+        evict(user.getId());
+    }
+
+    /**
+     * 回源结果写入两级缓存
+     */
+    private User load(User user) {
+        if (user == null) {
+            return null;
+        }
+        localUsers.put(user.getId(), user);
+        localUsernames.put(user.getUsername(), user.getId());
+        try {
+            redisTemplate.opsForValue().set(USER_CACHE_PREFIX + user.getId(),
+                    objectMapper.writeValueAsString(user), redisTtlMinutes, TimeUnit.MINUTES);
+            redisTemplate.opsForValue().set(USERNAME_CACHE_PREFIX + user.getUsername(),
+                    String.valueOf(user.getId()), redisTtlMinutes, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("[用户缓存] 写入缓存失败: {}", e.getMessage());
+        }
+        return user;
+    }
+
+    private void evict(Integer id) {
+        if (id == null) {
+            return;
+        }
+        localUsers.invalidate(id);
+        try {
+            redisTemplate.delete(USER_CACHE_PREFIX + id);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(id));
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖 L1 过期时间兜底
+            log.warn("[用户缓存] 删除缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        try {
+            localUsers.invalidate(Integer.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("[用户缓存] 忽略无法识别的失效通知");
+        }
     }
 }
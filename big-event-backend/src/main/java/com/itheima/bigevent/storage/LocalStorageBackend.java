@@ -0,0 +1,109 @@
+package com.itheima.bigevent.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 本地磁盘存储后端
+ * 按对象名哈希分两级目录存放（如 ab/cd/xxx.jpg），避免单目录文件过多；
+ * 先写临时文件再原子重命名，读取方不会看到写了一半的文件。文件通过 /files/{key} 下载
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStorageBackend.class);
+
+    // 对象名只允许字母、数字、点、下划线和中划线
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9._-]{1,200}");
+
+    @Value("${storage.local.dir:./uploads}")
+    private String localDir;
+
+    @Value("${storage.local.url-prefix:/files/}")
+    private String urlPrefix;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(localDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        log.info("[存储] 使用本地目录: {}", root);
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public void put(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(key + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(inputStream, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public String url(String key) {
+        return urlPrefix + key;
+    }
+
+    /**
+     * 对象名对应的文件路径；对象名不合法时抛出 IllegalArgumentException
+     */
+    public Path resolve(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches() || key.startsWith(".")) {
+            throw new IllegalArgumentException("文件名无效");
+        }
+        String shard = shard(key);
+        return root.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(key);
+    }
+
+    private String shard(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
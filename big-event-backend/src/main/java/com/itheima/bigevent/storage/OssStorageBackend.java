@@ -0,0 +1,196 @@
+package com.itheima.bigevent.storage;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 阿里云 OSS 存储后端
+ * 整个应用共用一个 OSS 客户端（连接池和 TLS 会话可复用）；大文件使用并行分片上传
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "oss", matchIfMissing = true)
+public class OssStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(OssStorageBackend.class);
+
+    @Value("${storage.oss.endpoint:https://oss-cn-beijing.aliyuncs.com}")
+    private String endpoint;
+
+    @Value("${storage.oss.access-key-id:}")
+    private String accessKeyId;
+
+    @Value("${storage.oss.access-key-secret:}")
+    private String accessKeySecret;
+
+    @Value("${storage.oss.bucket-name:}")
+    private String bucketName;
+
+    // 客户端最大连接数
+    @Value("${storage.oss.max-connections:64}")
+    private int maxConnections;
+
+    // 超过该大小（字节）使用分片上传
+    @Value("${storage.multipart.threshold:16777216}")
+    private long multipartThreshold;
+
+    // 分片大小（字节），OSS 要求除最后一片外不小于 100KB
+    @Value("${storage.multipart.part-size:8388608}")
+    private int partSize;
+
+    // 单个文件同时上传的分片数，也决定了单次上传最多占用的缓冲内存
+    @Value("${storage.multipart.concurrency:4}")
+    private int partConcurrency;
+
+    private OSS ossClient;
+    private ExecutorService partExecutor;
+
+    @PostConstruct
+    public void init() {
+        ClientBuilderConfiguration configuration = new ClientBuilderConfiguration();
+        configuration.setMaxConnections(maxConnections);
+        ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, configuration);
+
+        AtomicInteger counter = new AtomicInteger();
+        partExecutor = new ThreadPoolExecutor(partConcurrency, partConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "storage-part-upload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        partExecutor.shutdownNow();
+        ossClient.shutdown();
+    }
+
+    @Override
+    public String name() {
+        return "oss";
+    }
+
+    @Override
+    public void put(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (contentLength < 0 || contentLength > multipartThreshold) {
+            putMultipart(key, inputStream, contentType);
+            return;
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        ossClient.putObject(bucketName, key, inputStream, metadata);
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return ossClient.getObject(bucketName, key).getObjectContent();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return ossClient.doesObjectExist(bucketName, key);
+    }
+
+    @Override
+    public void delete(String key) {
+        ossClient.deleteObject(bucketName, key);
+    }
+
+    @Override
+    public String url(String key) {
+        return "https://" + bucketName + "." + endpoint.substring(endpoint.lastIndexOf("/") + 1) + "/" + key;
+    }
+
+    /**
+     * 按分片顺序读取输入流，读满一片就交给线程池上传；
+     * 信号量限制同时在途的分片数，单次上传最多占用 partConcurrency 个分片的内存
+     */
+    private void putMultipart(String key, InputStream inputStream, String contentType) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        String uploadId = ossClient.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, key, metadata)).getUploadId();
+
+        Semaphore inflight = new Semaphore(partConcurrency);
+        List<CompletableFuture<PartETag>> parts = new ArrayList<>();
+        try {
+            int partNumber = 0;
+            while (true) {
+                byte[] buffer = inputStream.readNBytes(partSize);
+                if (buffer.length == 0 && partNumber > 0) {
+                    break;
+                }
+                int number = ++partNumber;
+                inflight.acquire();
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        UploadPartRequest request = new UploadPartRequest();
+                        request.setBucketName(bucketName);
+                        request.setKey(key);
+                        request.setUploadId(uploadId);
+                        request.setPartNumber(number);
+                        request.setPartSize(buffer.length);
+                        request.setInputStream(new ByteArrayInputStream(buffer));
+                        return ossClient.uploadPart(request).getPartETag();
+                    } finally {
+                        inflight.release();
+                    }
+                }, partExecutor));
+                if (buffer.length < partSize) {
+                    break;
+                }
+            }
+
+            List<PartETag> etags = new ArrayList<>();
+            for (CompletableFuture<PartETag> part : parts) {
+                etags.add(part.join());
+            }
+            etags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, etags));
+        } catch (InterruptedException | IOException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            parts.forEach(part -> part.cancel(true));
+            try {
+                ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+            } catch (Exception abortError) {
+                log.warn("[存储] 取消分片上传失败: key={}, error={}", key, abortError.getMessage());
+            }
+            throw new IOException("分片上传失败: " + e.getMessage(), e);
+        }
+    }
+}
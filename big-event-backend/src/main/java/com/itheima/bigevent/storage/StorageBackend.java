@@ -0,0 +1,45 @@
+package com.itheima.bigevent.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 存储后端
+ * 由 storage.type 选择具体实现：oss（阿里云 OSS）或 local（本地磁盘）
+ */
+public interface StorageBackend {
+
+    /**
+     * 后端名称
+     */
+    String name();
+
+    /**
+     * 写入对象
+     * @param key           对象名（不含目录）
+     * @param inputStream   对象内容
+     * @param contentLength 对象大小（字节），未知时传 -1
+     * @param contentType   对象类型，可为 null
+     */
+    void put(String key, InputStream inputStream, long contentLength, String contentType) throws IOException;
+
+    /**
+     * 读取对象，调用方负责关闭
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * 对象是否存在
+     */
+    boolean exists(String key);
+
+    /**
+     * 删除对象，对象不存在时不做任何事
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * 对象的访问地址
+     */
+    String url(String key);
+}
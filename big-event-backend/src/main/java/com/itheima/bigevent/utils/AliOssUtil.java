@@ -1,46 +0,0 @@
-package com.itheima.bigevent.utils;
-
-import com.aliyun.oss.ClientException;
-import com.aliyun.oss.OSS;
-import com.aliyun.oss.OSSClientBuilder;
-import com.aliyun.oss.OSSException;
-
-import java.io.InputStream;
-
-public class AliOssUtil {
-    private static final String ENDPOINT = "https://oss-cn-beijing.aliyuncs.com";
-    public static final String ACCESS_KEY_ID = "";
-    private static final String SECRET_ACCESS_KEY = "";
-    private static final String BUCKET_NAME = ""; // 您已创建的存储桶名称
-
-    //上传文件,返回文件的公网访问地址
-    public static String uploadFile(String objectName, InputStream inputStream) {
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(ENDPOINT, ACCESS_KEY_ID, SECRET_ACCESS_KEY);
-        //公文访问地址
-        String url = "";
-        try {
-            // 不再尝试创建存储桶，直接使用已存在的存储桶
-            // 如果需要确保存储桶存在，可以添加检查逻辑
-            ossClient.putObject(BUCKET_NAME, objectName, inputStream);
-            url = "https://" + BUCKET_NAME + "." + ENDPOINT.substring(ENDPOINT.lastIndexOf("/") + 1) + "/" + objectName;
-        } catch (OSSException oe) {
-            System.out.println("Caught an OSSException, which means your request made it to OSS, "
-                    + "but was rejected with an error response for some reason.");
-            System.out.println("ErrorMessage:" + oe.getErrorMessage());
-            System.out.println("Error code:" + oe.getErrorCode());
-            System.out.println("Request ID:" + oe.getRequestId());
-            System.out.println("Host ID:" + oe.getHostId());
-        } catch (ClientException ce) {
-            System.out.println("Caught a ClientException, which means the client encountered "
-                    + "a serious internal problem while trying to communicate with OSS, "
-                    + "such as not being able to access the network.");
-            System.out.println("Error Message:" + ce.getMessage());
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
-        }
-        return url;
-    }
-}
@@ -1,23 +1,41 @@
 package com.itheima.bigevent.utils;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.itheima.bigevent.pojo.TokenClaims;
+import com.itheima.bigevent.pojo.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * JWT 签发与校验
+ * 签名算法和校验器在启动时创建一次（线程安全，可并发复用）。
+ * 支持密钥轮换：新令牌使用当前密钥签名并在头部写入 kid；
+ * jwt.retired-keys 中配置的旧密钥（格式 kid1:secret1,kid2:secret2）仍可用于校验，直到旧令牌自然过期
+ */
 @Component
 public class JwtUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
+
     @Value("${jwt.secret:}")
     private String secretKey;
 
-    private static String KEY;
+    @Value("${jwt.kid:k1}")
+    private String activeKid;
+
+    @Value("${jwt.retired-keys:}")
+    private String retiredKeys;
 
     // 普通token有效期：2小时
     private static final long NORMAL_TOKEN_EXPIRE = 1000L * 60 * 60 * 2;
@@ -25,99 +43,117 @@ public class JwtUtil {
     // 记住我token有效期：7天
     private static final long REMEMBER_ME_TOKEN_EXPIRE = 1000L * 60 * 60 * 24 * 7;
 
+    private Algorithm signer;
+
+    // kid -> 校验器；没有 kid 的旧令牌使用当前密钥校验
+    private final Map<String, JWTVerifier> verifiers = new HashMap<>();
+
+    private JWTVerifier activeVerifier;
+
     /**
      * 初始化JWT密钥
      * 从配置文件读取，如果未配置则从环境变量读取
      */
     @PostConstruct
     public void init() {
+        String key;
         // 优先使用配置文件中的密钥
         if (secretKey != null && !secretKey.trim().isEmpty()) {
-            KEY = secretKey.trim();
+            key = secretKey.trim();
         } else {
             // 从环境变量读取
-            KEY = System.getenv("JWT_SECRET");
+            key = System.getenv("JWT_SECRET");
         }
 
         // 如果仍然为空，使用默认值（仅用于开发环境，生产环境必须配置）
-        if (KEY == null || KEY.trim().isEmpty()) {
+        if (key == null || key.trim().isEmpty()) {
             String defaultKey = System.getProperty("jwt.secret");
             if (defaultKey != null && !defaultKey.trim().isEmpty()) {
-                KEY = defaultKey.trim();
+                key = defaultKey.trim();
             } else {
                 // 开发环境警告，生产环境应该抛出异常
                 System.err.println("⚠️ 警告: JWT密钥未配置！请设置 jwt.secret 或 JWT_SECRET 环境变量");
                 System.err.println("⚠️ 当前使用默认密钥，这是不安全的！生产环境必须配置强密钥！");
-                KEY = "itheima"; // 临时默认值，仅用于开发
+                key = "itheima"; // 临时默认值，仅用于开发
             }
         }
 
         // 验证密钥强度
-        if (KEY.length() < 32) {
+        if (key.length() < 32) {
             System.err.println("⚠️ 警告: JWT密钥长度不足32位，建议使用至少32位的强随机密钥！");
         }
-    }
 
-    // 接收业务数据, 生成 token 并返回（普通token，2小时）
-    public static String genToken(Map<String, Object> claims) {
-        return genToken(claims, false);
+        signer = Algorithm.HMAC256(key);
+        activeVerifier = JWT.require(signer).build();
+        verifiers.put(activeKid, activeVerifier);
+
+        if (retiredKeys != null && !retiredKeys.isBlank()) {
+            for (String entry : retiredKeys.split(",")) {
+                int idx = entry.indexOf(':');
+                if (idx <= 0 || idx == entry.length() - 1) {
+                    log.warn("[JWT] 忽略格式错误的旧密钥配置项（应为 kid:secret）");
+                    continue;
+                }
+                String kid = entry.substring(0, idx).trim();
+                if (kid.equals(activeKid)) {
+                    continue;
+                }
+                verifiers.put(kid, JWT.require(Algorithm.HMAC256(entry.substring(idx + 1).trim())).build());
+            }
+        }
+        log.info("[JWT] 当前密钥: {}，可校验的密钥: {}", activeKid, verifiers.keySet());
     }
 
-    // 接收业务数据, 生成 token 并返回
-    // isRememberMe: true表示"记住我"，有效期7天；false表示普通登录，有效期2小时
-    public static String genToken(Map<String, Object> claims, boolean isRememberMe) {
-        long expireTime = isRememberMe ? REMEMBER_ME_TOKEN_EXPIRE : NORMAL_TOKEN_EXPIRE;
+    // 签发token
+    // rememberMe: true表示"记住我"，有效期7天；false表示普通登录，有效期2小时
+    public String genToken(Integer id, String username, String role, boolean rememberMe) {
+        Map<String, Object> claims = new HashMap<>(4);
+        claims.put("id", id);
+        claims.put("username", username);
+        if (role != null) {
+            claims.put("role", role);
+        }
+        long expireTime = rememberMe ? REMEMBER_ME_TOKEN_EXPIRE : NORMAL_TOKEN_EXPIRE;
         return JWT.create()
+                .withKeyId(activeKid)
                 .withClaim("claims", claims)
-                .withClaim("rememberMe", isRememberMe)
+                .withClaim("rememberMe", rememberMe)
                 .withExpiresAt(new Date(System.currentTimeMillis() + expireTime))
-                .sign(Algorithm.HMAC256(KEY));
+                .sign(signer);
     }
 
-    // 刷新token（生成新的token，保持原有的rememberMe状态）
-    public static String refreshToken(String oldToken) {
-        try {
-            DecodedJWT decodedJWT = JWT.require(Algorithm.HMAC256(KEY))
-                    .build()
-                    .verify(oldToken);
-
-            Map<String, Object> claims = decodedJWT.getClaim("claims").asMap();
-            Boolean rememberMe = decodedJWT.getClaim("rememberMe").asBoolean();
-
-            if (rememberMe == null) {
-                rememberMe = false;
-            }
+    // 刷新token（用已校验的信息签发新token，保持原有的rememberMe状态）
+    public String refreshToken(TokenClaims claims) {
+        UserContext user = claims.user();
+        return genToken(user.id(), user.username(), user.role(), claims.rememberMe());
+    }
 
-            // 生成新token，保持原有的rememberMe状态
-            return genToken(claims, rememberMe);
-        } catch (JWTVerificationException e) {
-            throw new RuntimeException("Token刷新失败: " + e.getMessage());
+    // 校验token并返回其中的用户信息（只解码一次）
+    public TokenClaims verify(String token) {
+        DecodedJWT decoded = JWT.decode(token);
+        String kid = decoded.getKeyId();
+        JWTVerifier verifier = kid == null ? activeVerifier : verifiers.get(kid);
+        if (verifier == null) {
+            throw new JWTVerificationException("未知的密钥: " + kid);
         }
-    }
+        verifier.verify(decoded);
 
-    // 接收token,验证token,并返回业务数据
-    public static Map<String, Object> parseToken(String token) {
-        return JWT.require(Algorithm.HMAC256(KEY))
-                .build()
-                .verify(token)
-                .getClaim("claims")
-                .asMap();
+        Map<String, Object> claims = decoded.getClaim("claims").asMap();
+        if (claims == null) {
+            throw new JWTVerificationException("Token缺少用户信息");
+        }
+        Object id = claims.get("id");
+        Boolean rememberMe = decoded.getClaim("rememberMe").asBoolean();
+        UserContext user = new UserContext(
+                id instanceof Number n ? n.intValue() : null,
+                (String) claims.get("username"),
+                (String) claims.get("role"));
+        return new TokenClaims(user, rememberMe != null && rememberMe,
+                decoded.getExpiresAt().getTime());
     }
 
     // 检查token是否即将过期（剩余时间少于30分钟）
-    public static boolean isTokenExpiringSoon(String token) {
-        try {
-            DecodedJWT decodedJWT = JWT.require(Algorithm.HMAC256(KEY))
-                    .build()
-                    .verify(token);
-
-            Date expiresAt = decodedJWT.getExpiresAt();
-            long remainingTime = expiresAt.getTime() - System.currentTimeMillis();
-
-            // 剩余时间少于30分钟
-            return remainingTime < 1000L * 60 * 30;
-        } catch (JWTVerificationException e) {
-            return true; // token无效，视为即将过期
-        }
+    public boolean isTokenExpiringSoon(TokenClaims claims) {
+        return claims.expiresAt() - System.currentTimeMillis() < 1000L * 60 * 30;
     }
 }
@@ -1,23 +1,26 @@
 package com.itheima.bigevent.utils;
 
-import java.util.Map;
+import com.itheima.bigevent.pojo.UserContext;
 
 /**
  * ThreadLocal 工具类
+ * 保存当前请求的登录用户
  */
-@SuppressWarnings("all")
 public class ThreadLocalUtil {
     //提供ThreadLocal对象,
-    private static final ThreadLocal THREAD_LOCAL = new ThreadLocal();
+    private static final ThreadLocal<UserContext> THREAD_LOCAL = new ThreadLocal<>();
 
-    //根据键获取值
-    public static <T> T get() {
-        return (T) THREAD_LOCAL.get();
+    /**
+     * 获取当前登录用户
+     * @return 当前用户，如果未登录则返回null
+     */
+    public static UserContext get() {
+        return THREAD_LOCAL.get();
     }
 
-    //存储键值对
-    public static void set(Object value) {
-        THREAD_LOCAL.set(value);
+    //存储当前登录用户
+    public static void set(UserContext user) {
+        THREAD_LOCAL.set(user);
     }
 
     //清除ThreadLocal 防止内存泄漏
@@ -25,16 +28,25 @@ public class ThreadLocalUtil {
         THREAD_LOCAL.remove();
     }
 
+    /**
+     * 获取当前登录用户（必须登录）
+     * @throws RuntimeException 如果用户未登录或登录已过期
+     */
+    public static UserContext getRequired() {
+        UserContext user = THREAD_LOCAL.get();
+        if (user == null) {
+            throw new RuntimeException("用户未登录或登录已过期");
+        }
+        return user;
+    }
+
     /**
      * 获取当前登录用户ID
      * @return 用户ID，如果未登录则返回null
      */
     public static Integer getCurrentUserId() {
-        Map<String, Object> map = get();
-        if (map == null) {
-            return null;
-        }
-        return (Integer) map.get("id");
+        UserContext user = THREAD_LOCAL.get();
+        return user == null ? null : user.id();
     }
 
     /**
@@ -43,11 +55,7 @@ public class ThreadLocalUtil {
      * @throws RuntimeException 如果用户未登录或登录已过期
      */
     public static Integer getCurrentUserIdRequired() {
-        Map<String, Object> map = get();
-        if (map == null) {
-            throw new RuntimeException("用户未登录或登录已过期");
-        }
-        Integer userId = (Integer) map.get("id");
+        Integer userId = getRequired().id();
         if (userId == null) {
             throw new RuntimeException("无法获取用户ID");
         }
@@ -0,0 +1,124 @@
+package com.itheima.bigevent.cache.codec;
+
+import com.itheima.bigevent.cache.ArticleCacheEntry;
+import com.itheima.bigevent.pojo.Article;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCacheCodecTest {
+
+    private static final int THRESHOLD = 64;
+
+    private final JsonCacheCodec jsonCodec = new JsonCacheCodec();
+    private BinaryCacheCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new BinaryCacheCodec();
+        ReflectionTestUtils.setField(codec, "jsonCacheCodec", jsonCodec);
+        ReflectionTestUtils.setField(codec, "compressThreshold", THRESHOLD);
+    }
+
+    @Test
+    void roundTripEntry() {
+        Article article = article(1, "短正文");
+        ArticleCacheEntry decoded = codec.decode(codec.encode(new ArticleCacheEntry(article, 123L, 45L)));
+
+        assertEquals(article, decoded.getArticle());
+        assertEquals(123L, decoded.getSoftExpireAt());
+        assertEquals(45L, decoded.getLoadMillis());
+    }
+
+    @Test
+    void roundTripNullFields() {
+        Article article = new Article();
+        article.setId(7);
+        ArticleCacheEntry decoded = codec.decode(codec.encode(new ArticleCacheEntry(article, 0L, 0L)));
+
+        assertEquals(article, decoded.getArticle());
+    }
+
+    @Test
+    void roundTripList() {
+        List<Article> articles = List.of(article(1, null), article(2, "正文".repeat(100)));
+
+        assertEquals(articles, codec.decodeList(codec.encodeList(articles)));
+    }
+
+    @Test
+    void compressesContentAtThreshold() {
+        String below = "a".repeat(THRESHOLD - 1);
+        String atThreshold = "a".repeat(THRESHOLD);
+        byte[] plain = codec.encode(new ArticleCacheEntry(article(1, below), 0L, 0L));
+        byte[] compressed = codec.encode(new ArticleCacheEntry(article(1, atThreshold), 0L, 0L));
+
+        // 未压缩时编码结果包含完整正文，压缩后体积小于正文本身
+        assertTrue(plain.length > below.length());
+        assertTrue(compressed.length < plain.length);
+        assertEquals(atThreshold, codec.decode(compressed).getArticle().getContent());
+    }
+
+    @Test
+    void decodesLegacyJson() {
+        Article article = article(3, "旧格式");
+        ArticleCacheEntry entry = new ArticleCacheEntry(article, 10L, 2L);
+        List<Article> articles = List.of(article);
+
+        assertEquals(entry, codec.decode(jsonCodec.encode(entry)));
+        assertEquals(articles, codec.decodeList(jsonCodec.encodeList(articles)));
+    }
+
+    @Test
+    void truncatedDataIsMiss() {
+        byte[] data = codec.encode(new ArticleCacheEntry(article(1, "x".repeat(500)), 0L, 0L));
+        for (int length = 0; length < data.length; length++) {
+            assertNull(codec.decode(Arrays.copyOf(data, length)), "length=" + length);
+        }
+    }
+
+    @Test
+    void oversizedLengthIsMiss() {
+        // 列表数量声明为 Integer.MAX_VALUE，不应按该数量分配
+        byte[] list = ByteBuffer.allocate(6).put((byte) 0xB2).put((byte) 2).putInt(Integer.MAX_VALUE).array();
+        assertNull(codec.decodeList(list));
+
+        byte[] data = codec.encode(new ArticleCacheEntry(article(1, "正文"), 0L, 0L));
+        // 标题长度位于版本、类型、两个 long 和 id 字段之后
+        int titleLength = 2 + 16 + 5;
+        ByteBuffer.wrap(data).putInt(titleLength, Integer.MAX_VALUE - 1);
+        assertNull(codec.decode(data));
+    }
+
+    @Test
+    void malformedJsonIsMiss() {
+        assertNull(codec.decode("{\"article\":".getBytes()));
+        assertNull(codec.decodeList("[1,".getBytes()));
+    }
+
+    private static Article article(int id, String content) {
+        Article article = new Article();
+        article.setId(id);
+        article.setTitle("标题" + id);
+        article.setContent(content);
+        article.setCoverImg("https://example.com/" + id + ".jpg");
+        article.setState("已发布");
+        article.setCategoryId(2);
+        article.setCreateUser(3);
+        article.setCreateTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6000));
+        article.setUpdateTime(LocalDateTime.of(2024, 2, 3, 4, 5, 6));
+        article.setLikeCount(8);
+        article.setFavoriteCount(9);
+        article.setViewCount(10);
+        return article;
+    }
+}
@@ -0,0 +1,89 @@
+package com.itheima.bigevent.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileControllerTest {
+
+    private static final String ETAG = "\"64-18c\"";
+    // Sun, 06 Nov 1994 08:49:37 GMT
+    private static final long LAST_MODIFIED = 784111777000L;
+
+    @Test
+    void parsesClosedRange() {
+        assertArrayEquals(new long[]{0, 99}, FileController.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 500}, FileController.parseRange("bytes=500-500", 1000));
+    }
+
+    @Test
+    void clampsEndToLength() {
+        assertArrayEquals(new long[]{900, 999}, FileController.parseRange("bytes=900-5000", 1000));
+    }
+
+    @Test
+    void parsesOpenEndedRange() {
+        assertArrayEquals(new long[]{100, 999}, FileController.parseRange("bytes=100-", 1000));
+    }
+
+    @Test
+    void parsesSuffixRange() {
+        assertArrayEquals(new long[]{900, 999}, FileController.parseRange("bytes=-100", 1000));
+        // 后缀长度超过文件长度时返回整个文件
+        assertArrayEquals(new long[]{0, 999}, FileController.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    void usesFirstOfMultipleRanges() {
+        assertArrayEquals(new long[]{0, 9}, FileController.parseRange("bytes=0-9, 20-29", 1000));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertNull(FileController.parseRange("bytes=1000-", 1000));
+        assertNull(FileController.parseRange("bytes=10-5", 1000));
+        assertNull(FileController.parseRange("bytes=-0", 1000));
+        assertNull(FileController.parseRange("bytes=0-0", 0));
+    }
+
+    @Test
+    void rejectsMalformedRanges() {
+        assertNull(FileController.parseRange("items=0-9", 1000));
+        assertNull(FileController.parseRange("bytes=abc", 1000));
+        assertNull(FileController.parseRange("bytes=a-b", 1000));
+        assertNull(FileController.parseRange("bytes=--5", 1000));
+    }
+
+    @Test
+    void ifRangeAbsentAppliesRange() {
+        assertTrue(FileController.ifRangeMatches(null, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void ifRangeComparesEtagStrongly() {
+        assertTrue(FileController.ifRangeMatches(ETAG, ETAG, LAST_MODIFIED));
+        assertFalse(FileController.ifRangeMatches("\"other\"", ETAG, LAST_MODIFIED));
+        assertFalse(FileController.ifRangeMatches("W/" + ETAG, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void ifRangeComparesDateExactly() {
+        assertTrue(FileController.ifRangeMatches("Sun, 06 Nov 1994 08:49:37 GMT", ETAG, LAST_MODIFIED));
+        assertFalse(FileController.ifRangeMatches("Sun, 06 Nov 1994 08:49:38 GMT", ETAG, LAST_MODIFIED));
+        assertFalse(FileController.ifRangeMatches("not a date", ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void onlyRasterImagesAreInline() {
+        assertEquals("image/jpeg", FileController.inlineContentType("abc.jpg"));
+        assertEquals("image/png", FileController.inlineContentType("abc_w320.PNG"));
+        assertNull(FileController.inlineContentType("abc.svg"));
+        assertNull(FileController.inlineContentType("abc.html"));
+        assertNull(FileController.inlineContentType("abc.js"));
+        assertNull(FileController.inlineContentType("abc"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.itheima.bigevent.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitInterceptorTest {
+
+    private static final long START = TimeUnit.HOURS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void parsesPolicies() {
+        List<RateLimitInterceptor.Policy> policies =
+                RateLimitInterceptor.parsePolicies("/user/login:5/60, /api/**:10/1:20");
+
+        RateLimitInterceptor.Policy login = policies.get(0);
+        assertEquals("/user/login", login.pattern());
+        assertEquals(12 * SECOND, login.interval());
+        // 默认突发次数等于限额
+        assertEquals(4 * 12 * SECOND, login.tolerance());
+
+        RateLimitInterceptor.Policy api = policies.get(1);
+        assertEquals("/api/**", api.pattern());
+        assertEquals(SECOND / 10, api.interval());
+        assertEquals(19 * (SECOND / 10), api.tolerance());
+    }
+
+    @Test
+    void rejectsMalformedPolicies() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimitInterceptor.parsePolicies("/user/login"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitInterceptor.parsePolicies("/user/login:5"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitInterceptor.parsePolicies(":5/60"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitInterceptor.parsePolicies("/user/login:0/60"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitInterceptor.parsePolicies("/user/login:5/60:0"));
+    }
+
+    @Test
+    void allowsBurstThenWaitsOneInterval() {
+        RateLimitInterceptor.Policy policy = policy("/user/login:5/60");
+        AtomicLong tat = new AtomicLong();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, RateLimitInterceptor.acquire(tat, policy, START), "request " + i);
+        }
+        assertEquals(12 * SECOND, RateLimitInterceptor.acquire(tat, policy, START));
+        // 被拒绝的请求不推进理论到达时间
+        assertEquals(2 * SECOND, RateLimitInterceptor.acquire(tat, policy, START + 10 * SECOND));
+        assertEquals(0, RateLimitInterceptor.acquire(tat, policy, START + 12 * SECOND));
+        assertTrue(RateLimitInterceptor.acquire(tat, policy, START + 12 * SECOND) > 0);
+    }
+
+    @Test
+    void burstOfOneSpacesRequests() {
+        RateLimitInterceptor.Policy policy = policy("/user/login:5/60:1");
+        AtomicLong tat = new AtomicLong();
+
+        assertEquals(0, RateLimitInterceptor.acquire(tat, policy, START));
+        assertEquals(12 * SECOND, RateLimitInterceptor.acquire(tat, policy, START));
+        assertEquals(0, RateLimitInterceptor.acquire(tat, policy, START + 12 * SECOND));
+    }
+
+    @Test
+    void idleTimeRestoresBurstWithoutAccumulating() {
+        RateLimitInterceptor.Policy policy = policy("/user/login:5/60");
+        AtomicLong tat = new AtomicLong();
+        for (int i = 0; i < 5; i++) {
+            RateLimitInterceptor.acquire(tat, policy, START);
+        }
+
+        // 空闲很久后也只恢复到突发上限
+        long later = START + TimeUnit.HOURS.toNanos(1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, RateLimitInterceptor.acquire(tat, policy, later), "request " + i);
+        }
+        assertTrue(RateLimitInterceptor.acquire(tat, policy, later) > 0);
+    }
+
+    @Test
+    void retryAfterRoundsUp() {
+        assertEquals(1, RateLimitInterceptor.retryAfterSeconds(1));
+        assertEquals(1, RateLimitInterceptor.retryAfterSeconds(SECOND));
+        assertEquals(2, RateLimitInterceptor.retryAfterSeconds(SECOND + 1));
+        assertEquals(12, RateLimitInterceptor.retryAfterSeconds(12 * SECOND));
+    }
+
+    private static RateLimitInterceptor.Policy policy(String config) {
+        return RateLimitInterceptor.parsePolicies(config).get(0);
+    }
+}
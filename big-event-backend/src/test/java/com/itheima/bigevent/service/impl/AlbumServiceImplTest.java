@@ -0,0 +1,157 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.mapper.AlbumImageMapper;
+import com.itheima.bigevent.mapper.AlbumMapper;
+import com.itheima.bigevent.mapper.FileObjectMapper;
+import com.itheima.bigevent.pojo.Album;
+import com.itheima.bigevent.pojo.AlbumImage;
+import com.itheima.bigevent.service.StorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlbumServiceImplTest {
+
+    @Test
+    void unchangedImagesProduceNoWrites() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1));
+        List<AlbumImage> incoming = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertTrue(diff.inserts().isEmpty());
+        assertTrue(diff.updates().isEmpty());
+        assertTrue(diff.deletes().isEmpty());
+    }
+
+    @Test
+    void matchesByUrlWhenIdIsMissing() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0));
+        List<AlbumImage> incoming = List.of(image(null, "a.jpg", 0));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertTrue(diff.inserts().isEmpty());
+        assertTrue(diff.deletes().isEmpty());
+        assertEquals(1, incoming.get(0).getId());
+    }
+
+    @Test
+    void foreignIdFallsBackToUrlMatch() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0));
+        // ID 属于其他相册，按地址匹配到已有图片
+        List<AlbumImage> incoming = List.of(image(42, "a.jpg", 0), image(43, "c.jpg", 1));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertEquals(1, incoming.get(0).getId());
+        assertEquals(1, diff.inserts().size());
+        assertNull(diff.inserts().get(0).getId());
+        assertEquals(9, diff.inserts().get(0).getAlbumId());
+        assertTrue(diff.deletes().isEmpty());
+    }
+
+    @Test
+    void reorderOnlyUpdatesSortOrder() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1), image(3, "c.jpg", 2));
+        List<AlbumImage> incoming = List.of(image(3, "c.jpg", 0), image(1, "a.jpg", 1), image(2, "b.jpg", 2));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertEquals(List.of(3, 1, 2), diff.updates().stream().map(AlbumImage::getId).toList());
+        assertTrue(diff.inserts().isEmpty());
+        assertTrue(diff.deletes().isEmpty());
+    }
+
+    @Test
+    void unmatchedStoredImagesAreDeleted() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1), image(3, "c.jpg", 2));
+        List<AlbumImage> incoming = List.of(image(2, "b.jpg", 1), image(null, "d.jpg", 2));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertEquals(List.of(1, 3), diff.deletes());
+        assertEquals(List.of("d.jpg"), diff.inserts().stream().map(AlbumImage::getImageUrl).toList());
+        assertTrue(diff.updates().isEmpty());
+    }
+
+    @Test
+    void duplicateUrlsMatchOneStoredImageEach() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0), image(2, "a.jpg", 1));
+        List<AlbumImage> incoming = List.of(image(null, "a.jpg", 0), image(null, "a.jpg", 1), image(null, "a.jpg", 2));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertEquals(1, incoming.get(0).getId());
+        assertEquals(2, incoming.get(1).getId());
+        assertEquals(1, diff.inserts().size());
+        assertTrue(diff.deletes().isEmpty());
+    }
+
+    @Test
+    void urlMatchSkipsImagesAlreadyMatchedById() {
+        List<AlbumImage> stored = List.of(image(1, "a.jpg", 0), image(2, "a.jpg", 1));
+        List<AlbumImage> incoming = List.of(image(1, "a.jpg", 0), image(null, "a.jpg", 1));
+
+        AlbumServiceImpl.ImageDiff diff = AlbumServiceImpl.diff(9, stored, incoming);
+
+        assertEquals(2, incoming.get(1).getId());
+        assertTrue(diff.inserts().isEmpty());
+        assertTrue(diff.updates().isEmpty());
+        assertTrue(diff.deletes().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateReleasesRemovedImages() {
+        AlbumMapper albumMapper = mock(AlbumMapper.class);
+        AlbumImageMapper albumImageMapper = mock(AlbumImageMapper.class);
+        FileObjectMapper fileObjectMapper = mock(FileObjectMapper.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        AlbumServiceImpl albumService = new AlbumServiceImpl();
+        ReflectionTestUtils.setField(albumService, "albumMapper", albumMapper);
+        ReflectionTestUtils.setField(albumService, "albumImageMapper", albumImageMapper);
+        ReflectionTestUtils.setField(albumService, "fileObjectMapper", fileObjectMapper);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        ReflectionTestUtils.setField(albumService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(albumService, "eventPublisher", eventPublisher);
+
+        when(albumImageMapper.findByAlbumId(9)).thenReturn(List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1)));
+        when(fileObjectMapper.findByUrls(anyList())).thenReturn(List.of());
+        Album album = new Album();
+        album.setId(9);
+        album.setImages(new ArrayList<>(List.of(image(2, "b.jpg", 1))));
+
+        albumService.update(album);
+
+        verify(albumImageMapper).deleteByIds(9, List.of(1));
+        verify(albumImageMapper, never()).batchAdd(anyList());
+        verify(albumImageMapper, never()).batchUpdate(anyInt(), anyList());
+        verify(eventPublisher).publishEvent(new StorageService.FilesReleasedEvent(List.of("a.jpg")));
+    }
+
+    private static AlbumImage image(Integer id, String url, int sortOrder) {
+        AlbumImage image = new AlbumImage();
+        image.setId(id);
+        image.setAlbumId(9);
+        image.setImageUrl(url);
+        image.setSortOrder(sortOrder);
+        return image;
+    }
+}
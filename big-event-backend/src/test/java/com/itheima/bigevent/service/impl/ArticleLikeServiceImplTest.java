@@ -0,0 +1,184 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.pojo.ArticleLike;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ArticleLikeServiceImplTest {
+
+    @Test
+    void likeOnlyIsInserted() {
+        ArticleLikeServiceImpl.MergedChanges merged = ArticleLikeServiceImpl.merge(List.of("L|1|5|1.1.1.1"));
+
+        List<ArticleLike> expected = List.of(new ArticleLike(1, 5, "1.1.1.1", null));
+        assertEquals(expected, merged.changed());
+        assertEquals(expected, merged.inserts());
+        assertEquals(Set.of(1), merged.articleIds());
+    }
+
+    @Test
+    void unlikeOnlyIsDeleted() {
+        ArticleLikeServiceImpl.MergedChanges merged = ArticleLikeServiceImpl.merge(List.of("U|1|5|1.1.1.1"));
+
+        assertEquals(List.of(new ArticleLike(1, 5, "1.1.1.1", null)), merged.changed());
+        assertTrue(merged.inserts().isEmpty());
+    }
+
+    @Test
+    void opposingOperationsCancelOut() {
+        ArticleLikeServiceImpl.MergedChanges merged = ArticleLikeServiceImpl.merge(List.of(
+                "L|1|5|1.1.1.1", "U|1|5|1.1.1.1",
+                "U|2|5|1.1.1.1", "L|2|5|1.1.1.1"));
+
+        assertTrue(merged.changed().isEmpty());
+        assertTrue(merged.inserts().isEmpty());
+        assertEquals(Set.of(1, 2), merged.articleIds());
+    }
+
+    @Test
+    void lastOperationWins() {
+        ArticleLikeServiceImpl.MergedChanges merged = ArticleLikeServiceImpl.merge(List.of(
+                "L|1|5|1.1.1.1", "U|1|5|1.1.1.1", "L|1|5|2.2.2.2"));
+
+        // 同一用户换了 IP 仍是同一个点赞人，保留首次记录的 IP
+        assertEquals(List.of(new ArticleLike(1, 5, "1.1.1.1", null)), merged.inserts());
+    }
+
+    @Test
+    void anonymousLikersAreKeyedByIp() {
+        ArticleLikeServiceImpl.MergedChanges merged = ArticleLikeServiceImpl.merge(List.of(
+                "L|1||1.1.1.1", "L|1||2.2.2.2", "U|1||1.1.1.1"));
+
+        assertEquals(List.of(new ArticleLike(1, null, "2.2.2.2", null)), merged.inserts());
+    }
+
+    /**
+     * Lua 脚本需要真实的 Redis，本机 6379 端口不可用时跳过
+     */
+    @Nested
+    class Scripts {
+
+        private static LettuceConnectionFactory factory;
+        private static StringRedisTemplate redis;
+
+        private String prefix;
+        private String likers;
+        private String count;
+        private String pending;
+        private String processing;
+
+        @BeforeAll
+        static void connect() {
+            factory = new LettuceConnectionFactory("localhost", 6379);
+            factory.afterPropertiesSet();
+            boolean available;
+            try {
+                factory.getConnection().close();
+                available = true;
+            } catch (Exception e) {
+                available = false;
+            }
+            assumeTrue(available, "本机 Redis 不可用");
+            redis = new StringRedisTemplate(factory);
+        }
+
+        @AfterAll
+        static void disconnect() {
+            factory.destroy();
+        }
+
+        @BeforeEach
+        void setUp() {
+            prefix = "test:like:" + UUID.randomUUID() + ":";
+            likers = prefix + "set";
+            count = prefix + "count";
+            pending = prefix + "pending";
+            processing = prefix + "processing";
+            redis.opsForValue().set(count, "0");
+        }
+
+        @AfterEach
+        void tearDown() {
+            redis.delete(List.of(likers, count, pending, processing));
+        }
+
+        @Test
+        void likeIsIdempotent() {
+            assertEquals(1L, like("u:5", "L|1|5|ip"));
+            assertEquals(0L, like("u:5", "L|1|5|ip"));
+
+            assertEquals("1", redis.opsForValue().get(count));
+            assertEquals(List.of("L|1|5|ip"), redis.opsForList().range(pending, 0, -1));
+        }
+
+        @Test
+        void unlikeIsIdempotent() {
+            like("u:5", "L|1|5|ip");
+            assertEquals(1L, unlike("u:5", "U|1|5|ip"));
+            assertEquals(0L, unlike("u:5", "U|1|5|ip"));
+
+            assertEquals("0", redis.opsForValue().get(count));
+            assertEquals(List.of("L|1|5|ip", "U|1|5|ip"), redis.opsForList().range(pending, 0, -1));
+        }
+
+        @Test
+        void coldArticleIsRejected() {
+            redis.delete(count);
+
+            assertEquals(-1L, like("u:5", "L|1|5|ip"));
+            assertEquals(-1L, unlike("u:5", "U|1|5|ip"));
+            assertEquals(0L, redis.opsForList().size(pending));
+        }
+
+        @Test
+        void drainRedoesUnfinishedBatch() {
+            redis.opsForList().rightPushAll(pending, "a", "b", "c");
+
+            assertEquals(List.of("a", "b"), drain(2));
+            // 处理中队列未删除（上次持久化未完成），再次取出同一批
+            assertEquals(List.of("a", "b"), drain(2));
+            assertEquals(List.of("c"), redis.opsForList().range(pending, 0, -1));
+
+            redis.delete(processing);
+            assertEquals(List.of("c"), drain(2));
+        }
+
+        @Test
+        void requeueRestoresOrder() {
+            redis.opsForList().rightPushAll(pending, "a", "b", "c");
+            drain(2);
+            redis.opsForList().rightPush(pending, "d");
+
+            assertEquals(2L, redis.execute(ArticleLikeServiceImpl.REQUEUE_SCRIPT, List.of(pending, processing)));
+            assertEquals(List.of("a", "b", "c", "d"), redis.opsForList().range(pending, 0, -1));
+            assertEquals(0L, redis.opsForList().size(processing));
+        }
+
+        private Long like(String member, String record) {
+            return redis.execute(ArticleLikeServiceImpl.LIKE_SCRIPT, List.of(likers, count, pending), member, record, "60");
+        }
+
+        private Long unlike(String member, String record) {
+            return redis.execute(ArticleLikeServiceImpl.UNLIKE_SCRIPT, List.of(likers, count, pending), member, record, "60");
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<String> drain(int batchSize) {
+            return redis.execute(ArticleLikeServiceImpl.DRAIN_SCRIPT, List.of(pending, processing), String.valueOf(batchSize));
+        }
+    }
+}
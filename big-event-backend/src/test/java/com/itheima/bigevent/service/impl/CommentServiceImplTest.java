@@ -0,0 +1,113 @@
+package com.itheima.bigevent.service.impl;
+
+import com.itheima.bigevent.mapper.CommentMapper;
+import com.itheima.bigevent.pojo.Comment;
+import com.itheima.bigevent.pojo.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentServiceImplTest {
+
+    private CommentMapper commentMapper;
+    private CommentServiceImpl commentService;
+
+    @BeforeEach
+    void setUp() {
+        commentMapper = mock(CommentMapper.class);
+        commentService = new CommentServiceImpl();
+        ReflectionTestUtils.setField(commentService, "commentMapper", commentMapper);
+    }
+
+    @Test
+    void buildTreeKeepsRootsDescendingAndChildrenAscending() {
+        // 按创建时间倒序
+        List<Comment> comments = List.of(
+                comment(6, 1), comment(5, null), comment(4, 1), comment(3, 2), comment(2, null), comment(1, null));
+
+        List<Comment> roots = CommentServiceImpl.buildTree(comments);
+
+        assertEquals(List.of(5, 2, 1), ids(roots));
+        assertEquals(List.of(), ids(roots.get(0).getChildren()));
+        assertEquals(List.of(3), ids(roots.get(1).getChildren()));
+        assertEquals(List.of(4, 6), ids(roots.get(2).getChildren()));
+    }
+
+    @Test
+    void buildTreeDropsOrphans() {
+        List<Comment> roots = CommentServiceImpl.buildTree(List.of(comment(3, 99), comment(1, null)));
+
+        assertEquals(List.of(1), ids(roots));
+        assertTrue(roots.get(0).getChildren().isEmpty());
+    }
+
+    @Test
+    void cursorPageHasNextCursorWhenMoreRootsExist() {
+        when(commentMapper.findRootCommentsByCursor(7, null, 3))
+                .thenReturn(new ArrayList<>(List.of(comment(9, null), comment(8, null), comment(5, null))));
+        when(commentMapper.findChildCommentsByParentIds(anyList()))
+                .thenReturn(List.of(comment(10, 8), comment(11, 9), comment(12, 8)));
+
+        CursorPage<Comment> page = commentService.getArticleComments(7, null, 2);
+
+        assertEquals(List.of(9, 8), ids(page.getItems()));
+        assertEquals(8, page.getNextCursor());
+        assertEquals(List.of(11), ids(page.getItems().get(0).getChildren()));
+        assertEquals(List.of(10, 12), ids(page.getItems().get(1).getChildren()));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        when(commentMapper.findRootCommentsByCursor(7, 8, 3)).thenReturn(new ArrayList<>(List.of(comment(5, null))));
+        when(commentMapper.findChildCommentsByParentIds(anyList())).thenReturn(List.of());
+
+        CursorPage<Comment> page = commentService.getArticleComments(7, 8, 2);
+
+        assertEquals(List.of(5), ids(page.getItems()));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void emptyPageSkipsChildQuery() {
+        when(commentMapper.findRootCommentsByCursor(7, 5, 21)).thenReturn(new ArrayList<>());
+
+        CursorPage<Comment> page = commentService.getArticleComments(7, 5, null);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(commentMapper, never()).findChildCommentsByParentIds(anyList());
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        when(commentMapper.findRootCommentsByCursor(7, null, 101)).thenReturn(new ArrayList<>());
+
+        commentService.getArticleComments(7, null, 1000);
+
+        verify(commentMapper).findRootCommentsByCursor(7, null, 101);
+    }
+
+    private static Comment comment(int id, Integer parentId) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setArticleId(7);
+        comment.setParentId(parentId);
+        return comment;
+    }
+
+    private static List<Integer> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getId).toList();
+    }
+}